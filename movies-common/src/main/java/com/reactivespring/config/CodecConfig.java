@@ -0,0 +1,77 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+//Binary application/cbor and application/x-jackson-smile next to JSON, selected by Accept.
+//The Jackson codecs fall back to the JSON media types when given none, so each gets its own explicitly.
+//Custom writers are consulted before the default ones and the first producible type wins for Accept: */*,
+//so Smile takes its built-in slot behind JSON and JSON is registered again ahead of CBOR. Browsers and
+//clients that accept anything keep getting JSON.
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+
+    public CodecConfig(ObjectMapper jsonMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(this.smileMapper, SMILE));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(this.smileMapper, SMILE));
+        configurer.customCodecs().register(new Jackson2JsonEncoder(this.jsonMapper));
+        configurer.customCodecs().register(new CollectingCborEncoder(this.cborMapper));
+        configurer.customCodecs().register(new Jackson2CborDecoder(this.cborMapper, MediaType.APPLICATION_CBOR));
+    }
+
+    //Jackson2CborEncoder cannot encode a stream of values, so a Flux goes out as one CBOR array,
+    //the same way a Flux is written as a JSON array
+    static class CollectingCborEncoder extends Jackson2CborEncoder {
+
+        CollectingCborEncoder(ObjectMapper cborMapper) {
+            super(cborMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
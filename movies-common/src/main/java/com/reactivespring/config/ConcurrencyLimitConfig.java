@@ -0,0 +1,31 @@
+package com.reactivespring.config;
+
+import com.reactivespring.filter.ConcurrencyLimitFilter;
+import com.reactivespring.filter.StreamRoutes;
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+//The limiter for incoming requests; a service that calls backends adds one limiter per backend next to it
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter inboundConcurrencyLimiter(@Value("${concurrencyLimit.enabled:true}") boolean enabled,
+                                                                @Value("${concurrencyLimit.initialLimit:100}") int initialLimit,
+                                                                @Value("${concurrencyLimit.minLimit:10}") int minLimit,
+                                                                @Value("${concurrencyLimit.maxLimit:1000}") int maxLimit,
+                                                                @Value("${concurrencyLimit.maxLatency:500ms}") Duration maxLatency,
+                                                                @Value("${concurrencyLimit.backoffRatio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter("inbound", enabled, initialLimit, minLimit, maxLimit, maxLatency.toMillis(), backoffRatio);
+    }
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(@Qualifier("inboundConcurrencyLimiter") AdaptiveConcurrencyLimiter inboundConcurrencyLimiter, StreamRoutes streamRoutes) {
+        return new ConcurrencyLimitFilter(inboundConcurrencyLimiter, streamRoutes);
+    }
+}
@@ -0,0 +1,21 @@
+package com.reactivespring.config;
+
+import com.reactivespring.filter.RequestMetricsFilter;
+import com.reactivespring.filter.StreamRoutes;
+import com.reactivespring.metrics.RequestMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public RequestMetrics requestMetrics() {
+        return new RequestMetrics();
+    }
+
+    @Bean
+    public RequestMetricsFilter requestMetricsFilter(RequestMetrics requestMetrics, StreamRoutes streamRoutes) {
+        return new RequestMetricsFilter(requestMetrics, streamRoutes);
+    }
+}
@@ -0,0 +1,50 @@
+package com.reactivespring.config;
+
+import com.reactivespring.filter.PrioritySchedulingFilter;
+import com.reactivespring.filter.RequestClass;
+import com.reactivespring.filter.RequestClassifier;
+import com.reactivespring.filter.StreamRoutes;
+import com.reactivespring.util.PriorityRequestScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+//Only the services that describe their resource collection with requestScheduling.basePath and the query
+//parameter that bounds a listing there, requestScheduling.boundedBy
+@Configuration
+@ConditionalOnProperty(prefix = "requestScheduling", name = "basePath")
+public class RequestSchedulingConfig {
+
+    @Bean
+    public PriorityRequestScheduler priorityRequestScheduler(@Value("${requestScheduling.enabled:true}") boolean enabled,
+                                                             @Value("${requestScheduling.maxQueueWait:2s}") Duration maxQueueWait,
+                                                             @Value("${requestScheduling.interactive.maxConcurrent:64}") int interactiveMaxConcurrent,
+                                                             @Value("${requestScheduling.interactive.maxQueue:256}") int interactiveMaxQueue,
+                                                             @Value("${requestScheduling.write.maxConcurrent:16}") int writeMaxConcurrent,
+                                                             @Value("${requestScheduling.write.maxQueue:128}") int writeMaxQueue,
+                                                             @Value("${requestScheduling.write.reserved:4}") int writeReserved,
+                                                             @Value("${requestScheduling.bulk.maxConcurrent:4}") int bulkMaxConcurrent,
+                                                             @Value("${requestScheduling.bulk.maxQueue:16}") int bulkMaxQueue,
+                                                             @Value("${requestScheduling.bulk.reserved:1}") int bulkReserved) {
+        return new PriorityRequestScheduler(enabled, maxQueueWait, Map.of(
+                RequestClass.INTERACTIVE, new PriorityRequestScheduler.Quota(interactiveMaxConcurrent, interactiveMaxQueue, 0),
+                RequestClass.WRITE, new PriorityRequestScheduler.Quota(writeMaxConcurrent, writeMaxQueue, writeReserved),
+                RequestClass.BULK, new PriorityRequestScheduler.Quota(bulkMaxConcurrent, bulkMaxQueue, bulkReserved)));
+    }
+
+    @Bean
+    public RequestClassifier requestClassifier(@Value("${requestScheduling.basePath}") String basePath,
+                                               @Value("${requestScheduling.boundedBy}") String boundedBy) {
+        return new RequestClassifier(basePath, boundedBy);
+    }
+
+    @Bean
+    public PrioritySchedulingFilter prioritySchedulingFilter(PriorityRequestScheduler priorityRequestScheduler, StreamRoutes streamRoutes,
+                                                             RequestClassifier requestClassifier) {
+        return new PrioritySchedulingFilter(priorityRequestScheduler, streamRoutes, requestClassifier::classify);
+    }
+}
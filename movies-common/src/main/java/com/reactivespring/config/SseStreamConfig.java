@@ -0,0 +1,26 @@
+package com.reactivespring.config;
+
+import com.reactivespring.filter.SseKeepAliveFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+//Shared by all services; each one lists its event stream routes in a StreamRoutes bean of its own
+@Configuration
+public class SseStreamConfig {
+
+    @Bean
+    public SseKeepAliveFilter sseKeepAliveFilter(@Value("${sseStream.enabled:true}") boolean enabled,
+                                                 @Value("${sseStream.heartbeatInterval:15s}") Duration heartbeatInterval,
+                                                 @Value("${sseStream.idleTimeout:45s}") Duration idleTimeout,
+                                                 @Value("${sseStream.reconnectDelay:1s}") Duration reconnectDelay,
+                                                 @Value("${sseStream.reconnectJitter:4s}") Duration reconnectJitter,
+                                                 @Value("${sseStream.batch.enabled:false}") boolean batchEnabled,
+                                                 @Value("${sseStream.batch.maxEvents:64}") int batchMaxEvents,
+                                                 @Value("${sseStream.batch.maxDelay:5ms}") Duration batchMaxDelay) {
+        return new SseKeepAliveFilter(enabled, heartbeatInterval, idleTimeout, reconnectDelay, reconnectJitter,
+                batchEnabled, batchMaxEvents, batchMaxDelay);
+    }
+}
@@ -0,0 +1,75 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.filter.StreamRoutes;
+import com.reactivespring.filter.TracingFilter;
+import com.reactivespring.tracing.CollectorSpanExporter;
+import com.reactivespring.tracing.FileSpanExporter;
+import com.reactivespring.tracing.LogSpanExporter;
+import com.reactivespring.tracing.SpanExporter;
+import com.reactivespring.tracing.Tracer;
+import com.reactivespring.tracing.TracingExchangeFilter;
+import com.reactivespring.tracing.TracingRepositoryPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+//Shared by all services; each one names itself with tracing.serviceName
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public SpanExporter spanExporter(@Value("${tracing.exporter:log}") String exporter,
+                                     @Value("${tracing.file:traces/${tracing.serviceName}.jsonl}") String file,
+                                     @Value("${tracing.collectorUrl:http://localhost:9411/api/v2/spans}") String collectorUrl,
+                                     ObjectMapper objectMapper) {
+        switch (exporter) {
+            case "log":
+                return new LogSpanExporter(objectMapper);
+            case "file":
+                return new FileSpanExporter(Paths.get(file), objectMapper);
+            case "collector":
+                return new CollectorSpanExporter(collectorUrl, objectMapper);
+            default:
+                throw new IllegalArgumentException("tracing.exporter must be one of [log, file, collector]");
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public Tracer tracer(@Value("${tracing.enabled:true}") boolean enabled,
+                         @Value("${tracing.serviceName}") String serviceName,
+                         @Value("${tracing.slowThreshold:500ms}") Duration slowThreshold,
+                         @Value("${tracing.maxSpansPerTrace:256}") int maxSpansPerTrace,
+                         @Value("${tracing.maxQueuedSpans:10000}") int maxQueuedSpans,
+                         @Value("${tracing.exportInterval:1s}") Duration exportInterval,
+                         SpanExporter spanExporter) {
+        return new Tracer(enabled, serviceName, slowThreshold, maxSpansPerTrace, maxQueuedSpans, exportInterval, spanExporter);
+    }
+
+    @Bean
+    public TracingFilter tracingFilter(Tracer tracer, StreamRoutes streamRoutes) {
+        return new TracingFilter(tracer, streamRoutes);
+    }
+
+    //Applied to every WebClient built from the Boot builder
+    @Bean
+    public WebClientCustomizer tracingWebClientCustomizer() {
+        return builder -> builder.filter(new TracingExchangeFilter());
+    }
+
+    //Only the services with Spring Data repositories
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.data.repository.Repository")
+    static class RepositoryTracingConfig {
+
+        @Bean
+        public static TracingRepositoryPostProcessor tracingRepositoryPostProcessor() {
+            return new TracingRepositoryPostProcessor();
+        }
+    }
+}
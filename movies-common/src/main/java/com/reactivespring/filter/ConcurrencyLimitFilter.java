@@ -0,0 +1,48 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+//Sheds requests beyond the adaptive limit with 503 before any work is done. The service's event streams and
+//the internal endpoints are exempt: a stream would hold a permit for its whole lifetime. Everything else,
+//including finite NDJSON and SSE responses, counts against the limit.
+public class ConcurrencyLimitFilter implements WebFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final StreamRoutes streamRoutes;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, StreamRoutes streamRoutes) {
+        this.limiter = limiter;
+        this.streamRoutes = streamRoutes;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (isExempt(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        if (!this.limiter.tryAcquire()) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return response.setComplete();
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signalType -> {
+                    HttpStatus status = exchange.getResponse().getStatusCode();
+                    this.limiter.release(System.nanoTime() - start, status != null && status.is5xxServerError());
+                });
+    }
+
+    boolean isExempt(ServerHttpRequest request) {
+        return StreamRoutes.isInternal(request) || this.streamRoutes.matches(request);
+    }
+}
@@ -0,0 +1,56 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.PriorityRequestScheduler;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+//Queues each request in its class's lane until a slot is free. Runs ahead of the concurrency limit
+//filter so a queued request does not hold one of its permits. The event streams and the /internal
+//endpoints are exempt, so diagnostics stay reachable while user traffic queues; the classifier is the
+//service's own route table.
+public class PrioritySchedulingFilter implements WebFilter, Ordered {
+
+    private final PriorityRequestScheduler scheduler;
+    private final StreamRoutes streamRoutes;
+    private final Function<ServerHttpRequest, RequestClass> classifier;
+
+    public PrioritySchedulingFilter(PriorityRequestScheduler scheduler, StreamRoutes streamRoutes,
+                                    Function<ServerHttpRequest, RequestClass> classifier) {
+        this.scheduler = scheduler;
+        this.streamRoutes = streamRoutes;
+        this.classifier = classifier;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!this.scheduler.isEnabled() || StreamRoutes.isInternal(exchange.getRequest())
+                || this.streamRoutes.matches(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        RequestClass requestClass = this.classifier.apply(exchange.getRequest());
+        return this.scheduler.acquire(requestClass)
+                .onErrorResume(RejectedExecutionException.class, ex -> reject(exchange).then(Mono.empty()))
+                .flatMap(permit -> chain.filter(exchange)
+                        .doFinally(signalType -> permit.release()));
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return exchange.getResponse().setComplete();
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactivespring.filter;
+
+//In priority order: a class is only admitted while no higher class is waiting, except within its reserved share
+public enum RequestClass {
+    INTERACTIVE,
+    WRITE,
+    BULK
+}
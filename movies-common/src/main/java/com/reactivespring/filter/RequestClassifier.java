@@ -0,0 +1,36 @@
+package com.reactivespring.filter;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+//Route table for a service's resource collection at basePath:
+//  POST, PUT, DELETE                                          -> WRITE
+//  any GET accepting NDJSON (streamed export)                 -> BULK
+//  GET basePath without the boundedBy query parameter (export) -> BULK
+//  everything else, e.g. lookups by id and bounded listings   -> INTERACTIVE
+public class RequestClassifier {
+
+    private final String basePath;
+    private final String boundedBy;
+
+    public RequestClassifier(String basePath, String boundedBy) {
+        this.basePath = basePath;
+        this.boundedBy = boundedBy;
+    }
+
+    public RequestClass classify(ServerHttpRequest request) {
+        if (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD) {
+            return RequestClass.WRITE;
+        }
+        if (request.getHeaders().getAccept().stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)) {
+            return RequestClass.BULK;
+        }
+        String path = request.getPath().pathWithinApplication().value();
+        if ((path.equals(this.basePath) || path.equals(this.basePath + "/"))
+                && !request.getQueryParams().containsKey(this.boundedBy)) {
+            return RequestClass.BULK;
+        }
+        return RequestClass.INTERACTIVE;
+    }
+}
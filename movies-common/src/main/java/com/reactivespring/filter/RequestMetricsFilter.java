@@ -0,0 +1,75 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.metrics.RequestMetrics;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+//Outermost filter, so shed and queued requests are timed too. Requests are labelled by the matched
+//route pattern rather than the raw path to keep the number of series bounded. Event streams are left
+//out: they stay open for minutes and would swamp the request latency quantiles.
+public class RequestMetricsFilter implements WebFilter, Ordered {
+
+    //Set by exception handlers that turn an exception into a response, so it is still counted by type
+    public static final String HANDLED_EXCEPTION_ATTRIBUTE = RequestMetricsFilter.class.getName() + ".handledException";
+
+    private static final String UNMATCHED_ROUTE = "unmatched";
+
+    private final RequestMetrics requestMetrics;
+    private final StreamRoutes streamRoutes;
+
+    public RequestMetricsFilter(RequestMetrics requestMetrics, StreamRoutes streamRoutes) {
+        this.requestMetrics = requestMetrics;
+        this.streamRoutes = streamRoutes;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (this.streamRoutes.matches(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> {
+                    Throwable handled = exchange.getAttribute(HANDLED_EXCEPTION_ATTRIBUTE);
+                    if (handled != null) {
+                        this.requestMetrics.recordError(handled);
+                    }
+                    record(exchange, start);
+                })
+                .doOnError(ex -> {
+                    this.requestMetrics.recordError(ex);
+                    //the error handler sets the status further out; record once it has
+                    if (exchange.getResponse().isCommitted()) {
+                        record(exchange, start);
+                    } else {
+                        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> record(exchange, start)));
+                    }
+                });
+    }
+
+    private void record(ServerWebExchange exchange, long start) {
+        HttpStatus status = exchange.getResponse().getStatusCode();
+        this.requestMetrics.recordRequest(exchange.getRequest().getMethod(), route(exchange),
+                status != null ? status.value() : HttpStatus.OK.value(), System.nanoTime() - start);
+    }
+
+    static String route(ServerWebExchange exchange) {
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            pattern = exchange.getAttribute(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE);
+        }
+        return pattern != null ? pattern.getPatternString() : UNMATCHED_ROUTE;
+    }
+}
@@ -0,0 +1,190 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.ReadyBatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.Connection;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Keeps text/event-stream responses alive through idle proxies and reclaims the ones nobody reads.
+//A comment frame goes out every heartbeatInterval, so a half-open connection is written to, and
+//eventually fails, even when no events flow. When not even a heartbeat could be written for
+//idleTimeout the client is gone or hopelessly behind: the subscription is cancelled and the connection
+//closed. Heartbeats also carry a jittered retry hint, so clients cut off together do not all reconnect
+//at the same moment.
+//With batching on, frames that are ready within batch.maxDelay of each other are joined into one buffer
+//and written with a single flush, instead of one write and flush per event.
+@Slf4j
+public class SseKeepAliveFilter implements WebFilter {
+
+    private final boolean enabled;
+    private final Duration heartbeatInterval;
+    private final Duration idleTimeout;
+    private final long reconnectDelayMillis;
+    private final long reconnectJitterMillis;
+    private final boolean batchEnabled;
+    private final int batchMaxEvents;
+    private final Duration batchMaxDelay;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong idleTimeouts = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedFrames = new AtomicLong();
+
+    public SseKeepAliveFilter(boolean enabled, Duration heartbeatInterval, Duration idleTimeout,
+                              Duration reconnectDelay, Duration reconnectJitter,
+                              boolean batchEnabled, int batchMaxEvents, Duration batchMaxDelay) {
+        if (idleTimeout.compareTo(heartbeatInterval) <= 0) {
+            throw new IllegalArgumentException("sseStream.idleTimeout must be longer than sseStream.heartbeatInterval");
+        }
+        this.enabled = enabled;
+        this.heartbeatInterval = heartbeatInterval;
+        this.idleTimeout = idleTimeout;
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+        this.reconnectJitterMillis = reconnectJitter.toMillis();
+        this.batchEnabled = batchEnabled;
+        this.batchMaxEvents = batchMaxEvents;
+        this.batchMaxDelay = batchMaxDelay;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if ((!this.enabled && !this.batchEnabled) || !isStreamRequest(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new KeepAliveResponse(exchange.getResponse())).build());
+    }
+
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("active", this.active.get());
+        stats.put("opened", this.opened.get());
+        stats.put("heartbeats", this.heartbeats.get());
+        stats.put("idleTimeouts", this.idleTimeouts.get());
+        stats.put("cancelled", this.cancelled.get());
+        stats.put("batches", this.batches.get());
+        stats.put("batchedFrames", this.batchedFrames.get());
+        return stats;
+    }
+
+    static boolean isStreamRequest(ServerHttpRequest request) {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return false;
+        }
+        return request.getPath().pathWithinApplication().value().endsWith("/stream")
+                || request.getHeaders().getAccept().stream().anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+    }
+
+    //The writer only subscribes to the next frame once the previous one has gone out, so the time since
+    //the last subscription is how long the connection has been stuck.
+    Flux<Publisher<? extends DataBuffer>> keepAlive(Flux<? extends Publisher<? extends DataBuffer>> events,
+                                                    DataBufferFactory bufferFactory, Runnable reclaim) {
+        return Flux.defer(() -> {
+            Sinks.One<Boolean> eventsDone = Sinks.one();
+            AtomicLong lastWrite = new AtomicLong(now());
+            //Ticks with no demand are dropped: a stalled writer must not queue heartbeats behind it
+            Flux<Publisher<? extends DataBuffer>> heartbeatFrames = Flux.interval(this.heartbeatInterval)
+                    .onBackpressureDrop()
+                    .takeUntilOther(eventsDone.asMono())
+                    .map(tick -> Mono.fromSupplier(() -> heartbeat(bufferFactory)));
+            Mono<Long> stalled = Flux.interval(this.heartbeatInterval)
+                    .filter(tick -> now() - lastWrite.get() >= this.idleTimeout.toMillis())
+                    .next()
+                    .doOnNext(tick -> {
+                        this.idleTimeouts.incrementAndGet();
+                        log.info("Closing event stream, nothing written for {}", this.idleTimeout);
+                        reclaim.run();
+                    });
+            return Flux.<Publisher<? extends DataBuffer>>merge(
+                            events.doFinally(signalType -> eventsDone.tryEmitValue(true)),
+                            heartbeatFrames)
+                    .<Publisher<? extends DataBuffer>>map(frame -> Flux.from(frame).doOnSubscribe(subscription -> lastWrite.set(now())))
+                    .takeUntilOther(stalled)
+                    .doOnSubscribe(subscription -> {
+                        this.opened.incrementAndGet();
+                        this.active.incrementAndGet();
+                    })
+                    .doOnCancel(this.cancelled::incrementAndGet)
+                    .doFinally(signalType -> this.active.decrementAndGet());
+        });
+    }
+
+    Flux<Publisher<? extends DataBuffer>> batch(Flux<? extends Publisher<? extends DataBuffer>> frames) {
+        return ReadyBatcher.batch(frames, this.batchMaxEvents, this.batchMaxDelay)
+                .map(batch -> {
+                    this.batches.incrementAndGet();
+                    this.batchedFrames.addAndGet(batch.size());
+                    return DataBufferUtils.join(Flux.concat(batch));
+                });
+    }
+
+    private static long now() {
+        return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+    }
+
+    private DataBuffer heartbeat(DataBufferFactory bufferFactory) {
+        this.heartbeats.incrementAndGet();
+        long retryMillis = this.reconnectDelayMillis + ThreadLocalRandom.current().nextLong(this.reconnectJitterMillis + 1);
+        return bufferFactory.wrap((":heartbeat\nretry:" + retryMillis + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private class KeepAliveResponse extends ServerHttpResponseDecorator {
+
+        KeepAliveResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        //SSE bodies are written through here; everything else passes untouched
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            MediaType contentType = getHeaders().getContentType();
+            if (contentType == null || !MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(contentType)) {
+                return super.writeAndFlushWith(body);
+            }
+            Flux<? extends Publisher<? extends DataBuffer>> frames = Flux.from(body);
+            if (SseKeepAliveFilter.this.enabled) {
+                frames = keepAlive(frames, bufferFactory(), this::closeConnection);
+            }
+            if (SseKeepAliveFilter.this.batchEnabled) {
+                frames = batch(frames);
+            }
+            return super.writeAndFlushWith(frames);
+        }
+
+        //Completing the body is not enough on a half-open connection: the final chunk would wait on a
+        //full socket buffer forever, so the channel is closed outright.
+        private void closeConnection() {
+            Object nativeResponse = ServerHttpResponseDecorator.getNativeResponse(getDelegate());
+            if (nativeResponse instanceof HttpServerResponse) {
+                ((HttpServerResponse) nativeResponse).withConnection(Connection::dispose);
+            }
+        }
+    }
+}
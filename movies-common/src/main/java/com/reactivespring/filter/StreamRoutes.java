@@ -0,0 +1,25 @@
+package com.reactivespring.filter;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.util.Set;
+
+//The long-lived event stream routes of a service, matched by exact path. Filters that hold a permit, a
+//queue slot or a latency sample for the length of a request leave these out. Finite streamed responses,
+//such as NDJSON exports, are ordinary requests and are not listed.
+public class StreamRoutes {
+
+    private final Set<String> paths;
+
+    public StreamRoutes(String... paths) {
+        this.paths = Set.of(paths);
+    }
+
+    public boolean matches(ServerHttpRequest request) {
+        return this.paths.contains(request.getPath().pathWithinApplication().value());
+    }
+
+    public static boolean isInternal(ServerHttpRequest request) {
+        return request.getPath().pathWithinApplication().value().startsWith("/internal");
+    }
+}
@@ -0,0 +1,71 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.tracing.Span;
+import com.reactivespring.tracing.Tracer;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+//Opens the server span of each request and puts it in the Reactor Context for the hops below.
+//Runs inside the metrics filter but ahead of scheduling, so queueing time is part of the span.
+//Streams and internal endpoints are not traced.
+public class TracingFilter implements WebFilter, Ordered {
+
+    private final Tracer tracer;
+    private final StreamRoutes streamRoutes;
+
+    public TracingFilter(Tracer tracer, StreamRoutes streamRoutes) {
+        this.tracer = tracer;
+        this.streamRoutes = streamRoutes;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 50;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!this.tracer.isEnabled() || StreamRoutes.isInternal(exchange.getRequest()) || this.streamRoutes.matches(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        Span span = this.tracer.startServerSpan(exchange.getRequest().getHeaders().getFirst(Tracer.TRACEPARENT),
+                String.valueOf(exchange.getRequest().getMethod()));
+        span.tag("http.path", exchange.getRequest().getPath().value());
+        exchange.getResponse().beforeCommit(() -> {
+            HttpStatus status = exchange.getResponse().getStatusCode();
+            if (status != null && status.is5xxServerError()) {
+                span.markError(String.valueOf(status.value()));
+            }
+            exchange.getResponse().getHeaders().set(Tracer.TRACERESPONSE, this.tracer.traceresponse(span));
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .doOnError(ex -> span.tag("exception", ex.getClass().getSimpleName()))
+                .doFinally(signalType -> {
+                    if (signalType == SignalType.ON_ERROR && !exchange.getResponse().isCommitted()) {
+                        //the error handler sets the status further out
+                        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> finish(exchange, span)));
+                    } else {
+                        finish(exchange, span);
+                    }
+                })
+                .contextWrite(Context.of(Span.class, span));
+    }
+
+    private static void finish(ServerWebExchange exchange, Span span) {
+        HttpStatus status = exchange.getResponse().getStatusCode();
+        int statusCode = status != null ? status.value() : HttpStatus.OK.value();
+        if (statusCode >= 500) {
+            span.markError(String.valueOf(statusCode));
+        }
+        span.setName(exchange.getRequest().getMethod() + " " + RequestMetricsFilter.route(exchange));
+        span.tag("http.status_code", String.valueOf(statusCode));
+        span.finish();
+    }
+}
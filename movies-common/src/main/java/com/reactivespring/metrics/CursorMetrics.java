@@ -0,0 +1,111 @@
+package com.reactivespring.metrics;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts cursor round trips (find and getMore) and the documents each batch carried, so batchSize/limitRate
+//settings can be tuned against real traffic. Sizing a response means re-encoding it, so bytes are only
+//measured on one round trip in sizeSampleEvery and reported as an average over those samples.
+//Only registered in the services that talk to Mongo.
+@Component
+@ConditionalOnClass(name = "com.mongodb.event.CommandListener")
+public class CursorMetrics implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
+    private final int sizeSampleEvery;
+    private final CommandStats find = new CommandStats();
+    private final CommandStats getMore = new CommandStats();
+
+    public CursorMetrics(@Value("${cursorMetrics.sizeSampleEvery:100}") int sizeSampleEvery) {
+        this.sizeSampleEvery = Math.max(1, sizeSampleEvery);
+    }
+
+    @Override
+    public void customize(MongoClientSettings.Builder settings) {
+        settings.addCommandListener(this);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        CommandStats stats;
+        String batchField;
+        if ("find".equals(event.getCommandName())) {
+            stats = this.find;
+            batchField = "firstBatch";
+        } else if ("getMore".equals(event.getCommandName())) {
+            stats = this.getMore;
+            batchField = "nextBatch";
+        } else {
+            return;
+        }
+        BsonDocument response = event.getResponse();
+        stats.roundTrips.increment();
+        stats.documents.add(batchSize(response, batchField));
+        stats.nanos.add(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        if (stats.sampleSequence.getAndIncrement() % this.sizeSampleEvery == 0) {
+            stats.sampledBatches.increment();
+            stats.sampledBytes.add(byteSize(response));
+        }
+    }
+
+    public Map<String, Map<String, Number>> stats() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        stats.put("find", this.find.snapshot());
+        stats.put("getMore", this.getMore.snapshot());
+        return stats;
+    }
+
+    private static int batchSize(BsonDocument response, String batchField) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor == null || !cursor.isDocument()) {
+            return 0;
+        }
+        BsonArray batch = cursor.asDocument().getArray(batchField, null);
+        return batch == null ? 0 : batch.size();
+    }
+
+    private static long byteSize(BsonDocument response) {
+        RawBsonDocument raw = response instanceof RawBsonDocument
+                ? (RawBsonDocument) response
+                : new RawBsonDocument(response, DOCUMENT_CODEC);
+        return raw.getByteBuffer().remaining();
+    }
+
+    private static class CommandStats {
+        private final LongAdder roundTrips = new LongAdder();
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong sampleSequence = new AtomicLong();
+        private final LongAdder sampledBatches = new LongAdder();
+        private final LongAdder sampledBytes = new LongAdder();
+
+        private Map<String, Number> snapshot() {
+            long trips = this.roundTrips.sum();
+            long samples = this.sampledBatches.sum();
+            Map<String, Number> snapshot = new LinkedHashMap<>();
+            snapshot.put("roundTrips", trips);
+            snapshot.put("documents", this.documents.sum());
+            snapshot.put("sampledBatches", samples);
+            snapshot.put("avgBytesPerBatch", samples == 0 ? 0 : this.sampledBytes.sum() / samples);
+            snapshot.put("avgMillisPerBatch", trips == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.nanos.sum()) / (double) trips);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.reactivespring.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Latency in microseconds, up to one minute at two significant digits. Recording goes to a fixed size
+//Recorder (wait-free, no allocation); each scrape moves the interval since the last one into a ring of
+//time slots, so readers never contend with writers. Quantiles cover the slots of the last minute only,
+//while the count and sum stay cumulative as Prometheus expects of a summary.
+public class LatencyTimer {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int WINDOW_SLOTS = 6;
+    private static final long SLOT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+    private final Histogram[] slots = new Histogram[WINDOW_SLOTS];
+    private final Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+    private final LongAdder totalMicros = new LongAdder();
+    private Histogram interval;
+    private long totalCount;
+    private int currentSlot;
+    private long slotStart = System.nanoTime();
+
+    public LatencyTimer() {
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            this.slots[i] = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+        this.recorder.recordValue(micros);
+        this.totalMicros.add(micros);
+    }
+
+    synchronized Histogram snapshot() {
+        return snapshot(System.nanoTime());
+    }
+
+    synchronized Histogram snapshot(long nowNanos) {
+        rotate(nowNanos);
+        this.interval = this.recorder.getIntervalHistogram(this.interval);
+        this.slots[this.currentSlot].add(this.interval);
+        this.totalCount += this.interval.getTotalCount();
+
+        this.window.reset();
+        for (Histogram slot : this.slots) {
+            this.window.add(slot);
+        }
+        return this.window;
+    }
+
+    //Clears the slots that fell out of the window since the last scrape
+    private void rotate(long nowNanos) {
+        long elapsedSlots = (nowNanos - this.slotStart) / SLOT_NANOS;
+        for (long i = 0; i < Math.min(elapsedSlots, WINDOW_SLOTS); i++) {
+            this.currentSlot = (this.currentSlot + 1) % WINDOW_SLOTS;
+            this.slots[this.currentSlot].reset();
+        }
+        this.slotStart += elapsedSlots * SLOT_NANOS;
+    }
+
+    synchronized long totalCount() {
+        return this.totalCount;
+    }
+
+    long totalMicros() {
+        return this.totalMicros.sum();
+    }
+}
@@ -0,0 +1,39 @@
+package com.reactivespring.metrics;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+//Mongo is this service's downstream: every command's driver-measured round trip is timed by command name.
+//Only registered in the services that talk to Mongo.
+@Component
+@ConditionalOnClass(name = "com.mongodb.event.CommandListener")
+public class MongoCommandTimer implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    private final RequestMetrics requestMetrics;
+
+    public MongoCommandTimer(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @Override
+    public void customize(MongoClientSettings.Builder settings) {
+        settings.addCommandListener(this);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        this.requestMetrics.recordClientCall("mongo", event.getCommandName(), true, event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        this.requestMetrics.recordClientCall("mongo", event.getCommandName(), false, event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,72 @@
+package com.reactivespring.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+//Minimal writer for the Prometheus text exposition format (version 0.0.4)
+public class PrometheusText {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    public PrometheusText header(String name, String type, String help) {
+        this.text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        this.text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, String labels, Number value) {
+        this.text.append(name);
+        if (!labels.isEmpty()) {
+            this.text.append('{').append(labels).append('}');
+        }
+        this.text.append(' ').append(value).append('\n');
+        return this;
+    }
+
+    //Windowed quantiles, cumulative _count and _sum in seconds; the header is written by the caller once per metric name
+    public PrometheusText summary(String name, String labels, LatencyTimer timer) {
+        synchronized (timer) {
+            Histogram histogram = timer.snapshot();
+            for (double quantile : QUANTILES) {
+                String quantileLabels = (labels.isEmpty() ? "" : labels + ",") + "quantile=\"" + quantile + "\"";
+                sample(name, quantileLabels, histogram.getValueAtPercentile(quantile * 100) / 1e6);
+            }
+            sample(name + "_count", labels, timer.totalCount());
+        }
+        return sample(name + "_sum", labels, timer.totalMicros() / 1e6);
+    }
+
+    //Flattens {key -> {stat -> value}} stats into one gauge per stat, labelled by key
+    public PrometheusText gauges(String prefix, String labelName, Map<String, Map<String, Number>> stats, String help) {
+        Map<String, Number> first = stats.isEmpty() ? Map.of() : stats.values().iterator().next();
+        for (String stat : first.keySet()) {
+            String name = prefix + "_" + snakeCase(stat);
+            header(name, "gauge", help);
+            stats.forEach((key, values) -> {
+                Number value = values.get(stat);
+                if (value != null) {
+                    sample(name, label(labelName, key), value);
+                }
+            });
+        }
+        return this;
+    }
+
+    public static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    static String snakeCase(String camelCase) {
+        return camelCase.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    @Override
+    public String toString() {
+        return this.text.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.reactivespring.metrics;
+
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Per route latency and status counts, error counts by exception type and downstream call timings.
+//Lookups on the recording path are keyed by existing objects (method, pattern string, exception
+//class), so a request records without building keys.
+public class RequestMetrics {
+
+    private final Map<HttpMethod, ConcurrentHashMap<String, RouteMetrics>> routes = new EnumMap<>(HttpMethod.class);
+    private final ConcurrentHashMap<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ClientMetrics>> clients = new ConcurrentHashMap<>();
+
+    public RequestMetrics() {
+        for (HttpMethod method : HttpMethod.values()) {
+            this.routes.put(method, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void recordRequest(HttpMethod method, String route, int status, long nanos) {
+        RouteMetrics routeMetrics = this.routes.get(method != null ? method : HttpMethod.GET)
+                .computeIfAbsent(route, key -> new RouteMetrics());
+        routeMetrics.latency.record(nanos);
+        if (status > 0 && status < RouteMetrics.STATUS_CODES) {
+            routeMetrics.statuses.incrementAndGet(status);
+        }
+    }
+
+    public void recordError(Throwable ex) {
+        this.errors.computeIfAbsent(ex.getClass(), key -> new LongAdder()).increment();
+    }
+
+    public void recordClientCall(String client, String operation, boolean success, long nanos) {
+        ClientMetrics clientMetrics = this.clients.computeIfAbsent(client, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation, key -> new ClientMetrics());
+        (success ? clientMetrics.success : clientMetrics.error).record(nanos);
+    }
+
+    //Times each subscription; an error counts as a failed call, a cancellation is not recorded. The call is
+    //recorded before its terminal signal goes downstream, so it is visible once the caller sees the result.
+    public <T> Mono<T> timeClient(String client, String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> recordClientCall(client, operation, true, System.nanoTime() - start))
+                    .doOnError(ex -> recordClientCall(client, operation, false, System.nanoTime() - start));
+        });
+    }
+
+    public <T> Flux<T> timeClient(String client, String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnComplete(() -> recordClientCall(client, operation, true, System.nanoTime() - start))
+                    .doOnError(ex -> recordClientCall(client, operation, false, System.nanoTime() - start));
+        });
+    }
+
+    public void writeTo(PrometheusText text) {
+        text.header("http_server_requests_seconds", "summary", "Request latency by route");
+        this.routes.forEach((method, byRoute) -> byRoute.forEach((route, routeMetrics) ->
+                text.summary("http_server_requests_seconds", routeLabels(method, route), routeMetrics.latency)));
+
+        text.header("http_server_requests_total", "counter", "Requests by route and response status");
+        this.routes.forEach((method, byRoute) -> byRoute.forEach((route, routeMetrics) -> {
+            for (int status = 0; status < RouteMetrics.STATUS_CODES; status++) {
+                long count = routeMetrics.statuses.get(status);
+                if (count > 0) {
+                    text.sample("http_server_requests_total",
+                            routeLabels(method, route) + "," + PrometheusText.label("status", String.valueOf(status)), count);
+                }
+            }
+        }));
+
+        text.header("http_server_errors_total", "counter", "Failed requests by exception type");
+        this.errors.forEach((type, count) ->
+                text.sample("http_server_errors_total", PrometheusText.label("exception", type.getSimpleName()), count.sum()));
+
+        text.header("http_client_requests_seconds", "summary", "Downstream call latency by outcome");
+        this.clients.forEach((client, byOperation) -> byOperation.forEach((operation, clientMetrics) -> {
+            String labels = PrometheusText.label("client", client) + "," + PrometheusText.label("operation", operation);
+            text.summary("http_client_requests_seconds", labels + ",outcome=\"success\"", clientMetrics.success);
+            text.summary("http_client_requests_seconds", labels + ",outcome=\"error\"", clientMetrics.error);
+        }));
+    }
+
+    private static String routeLabels(HttpMethod method, String route) {
+        return PrometheusText.label("method", method.name()) + "," + PrometheusText.label("route", route);
+    }
+
+    private static class RouteMetrics {
+
+        private static final int STATUS_CODES = 600;
+
+        private final LatencyTimer latency = new LatencyTimer();
+        private final AtomicLongArray statuses = new AtomicLongArray(STATUS_CODES);
+    }
+
+    private static class ClientMetrics {
+
+        private final LatencyTimer success = new LatencyTimer();
+        private final LatencyTimer error = new LatencyTimer();
+    }
+}
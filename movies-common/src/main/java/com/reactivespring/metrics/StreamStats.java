@@ -0,0 +1,159 @@
+package com.reactivespring.metrics;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+//Health of one event stream: emit outcomes by EmitResult, what the replay buffer holds, and per
+//subscriber delivery, demand and lag. Lag is counted in events, as the distance between the last
+//sequence emitted and the last one the subscriber received; it is only known for in-process sinks.
+public class StreamStats<T> {
+
+    //sequence of events that don't come from the sink, e.g. a tailable cursor in capped mode
+    public static final long NO_SEQUENCE = Long.MIN_VALUE;
+
+    private final String name;
+    private final boolean replaysAll;
+    private final ToLongFunction<T> sizeEstimator;
+    private final Map<Sinks.EmitResult, LongAdder> emitResults = new EnumMap<>(Sinks.EmitResult.class);
+    private final AtomicLong lastSequence = new AtomicLong(-1);
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final Map<Long, SubscriberStats> subscribers = new ConcurrentHashMap<>();
+    private volatile long lastEmitMillis;
+
+    //replaysAll: the sink keeps every event (replay().all()) rather than only the latest one
+    public StreamStats(String name, boolean replaysAll, ToLongFunction<T> sizeEstimator) {
+        this.name = name;
+        this.replaysAll = replaysAll;
+        this.sizeEstimator = sizeEstimator;
+        for (Sinks.EmitResult result : Sinks.EmitResult.values()) {
+            this.emitResults.put(result, new LongAdder());
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void recordEmit(Sinks.EmitResult result, long sequence, T event) {
+        this.emitResults.get(result).increment();
+        if (result.isSuccess()) {
+            //racing emitters may record out of order
+            this.lastSequence.accumulateAndGet(sequence, Math::max);
+            this.lastEmitMillis = System.currentTimeMillis();
+            long size = this.sizeEstimator.applyAsLong(event);
+            if (this.replaysAll) {
+                this.retainedBytes.addAndGet(size);
+            } else {
+                this.retainedBytes.set(size);
+            }
+        }
+    }
+
+    public long lastSequence() {
+        return this.lastSequence.get();
+    }
+
+    //Tracks one subscription. startAfter is the last sequence the subscriber is considered to have
+    //seen when it connects (-1 for none), or NO_SEQUENCE when its events don't come from the sink.
+    public <E> Flux<E> track(Flux<E> events, String subscriber, long startAfter, ToLongFunction<E> sequence) {
+        return Flux.defer(() -> {
+            SubscriberStats stats = new SubscriberStats(subscriber, startAfter);
+            long id = this.subscriberIds.incrementAndGet();
+            return events
+                    .doOnSubscribe(subscription -> this.subscribers.put(id, stats))
+                    .doOnRequest(stats::request)
+                    .doOnNext(event -> stats.delivered(sequence.applyAsLong(event)))
+                    .doFinally(signalType -> this.subscribers.remove(id));
+        });
+    }
+
+    public Map<String, Number> summary() {
+        Map<String, Number> summary = new LinkedHashMap<>();
+        summary.put("subscribers", this.subscribers.size());
+        summary.put("emitted", this.emitResults.get(Sinks.EmitResult.OK).sum());
+        summary.put("emitFailures", this.emitResults.entrySet().stream()
+                .filter(entry -> entry.getKey().isFailure())
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum());
+        summary.put("replayBuffered", this.replaysAll ? this.lastSequence.get() + 1 : Math.min(1, this.lastSequence.get() + 1));
+        summary.put("replayBytesEstimate", this.retainedBytes.get());
+        summary.put("maxLag", this.subscribers.values().stream().mapToLong(this::lag).max().orElse(0));
+        return summary;
+    }
+
+    public Map<String, Object> details() {
+        Map<String, Object> details = new LinkedHashMap<>(summary());
+        Map<String, Long> results = new LinkedHashMap<>();
+        this.emitResults.forEach((result, count) -> results.put(result.name(), count.sum()));
+        details.put("emitResults", results);
+        details.put("lastEmitMillis", this.lastEmitMillis);
+        List<Map<String, Object>> subscriberDetails = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        this.subscribers.forEach((id, stats) -> {
+            Map<String, Object> subscriber = new LinkedHashMap<>();
+            subscriber.put("id", id);
+            subscriber.put("subscriber", stats.subscriber);
+            subscriber.put("connectedMillis", now - stats.connectedAt);
+            subscriber.put("delivered", stats.delivered.get());
+            subscriber.put("outstandingDemand", stats.outstandingDemand());
+            subscriber.put("lastSequence", stats.lastSequence.get());
+            subscriber.put("lag", lag(stats));
+            subscriberDetails.add(subscriber);
+        });
+        details.put("subscriberDetails", subscriberDetails);
+        return details;
+    }
+
+    //object header, fields and array header of a String, plus one byte per (Latin-1) character
+    public static long stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    private long lag(SubscriberStats stats) {
+        if (stats.lastSequence.get() == NO_SEQUENCE) {
+            return 0;
+        }
+        return Math.max(0, this.lastSequence.get() - stats.lastSequence.get());
+    }
+
+    private static class SubscriberStats {
+
+        private final String subscriber;
+        private final long connectedAt = System.currentTimeMillis();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong lastSequence;
+
+        private SubscriberStats(String subscriber, long startAfter) {
+            this.subscriber = subscriber;
+            this.lastSequence = new AtomicLong(startAfter);
+        }
+
+        private void request(long n) {
+            this.requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        }
+
+        private void delivered(long sequence) {
+            this.delivered.incrementAndGet();
+            if (sequence != NO_SEQUENCE) {
+                this.lastSequence.set(sequence);
+            }
+        }
+
+        private long outstandingDemand() {
+            long requested = this.requested.get();
+            return requested == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, requested - this.delivered.get());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactivespring.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//POSTs a JSON array of Zipkin v2 spans, e.g. to a local Zipkin or OpenTelemetry collector on
+///api/v2/spans. Uses the JDK client so export calls are never traced themselves.
+public class CollectorSpanExporter implements SpanExporter {
+
+    private final URI collectorUrl;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    public CollectorSpanExporter(String collectorUrl, ObjectMapper objectMapper) {
+        this.collectorUrl = URI.create(collectorUrl);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void export(String serviceName, List<Span> spans) throws Exception {
+        byte[] body = this.objectMapper.writeValueAsBytes(spans.stream()
+                .map(span -> span.toZipkin(serviceName))
+                .collect(Collectors.toList()));
+        HttpRequest request = HttpRequest.newBuilder(this.collectorUrl)
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<Void> response = this.httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Collector answered " + response.statusCode());
+        }
+    }
+}
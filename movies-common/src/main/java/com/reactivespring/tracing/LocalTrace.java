@@ -0,0 +1,72 @@
+package com.reactivespring.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//The spans of one request within this service, held until its server span finishes and the
+//sampling decision is made. Spans finishing after that belong to work nobody waits for and are dropped.
+class LocalTrace {
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private Span root;
+    private boolean completed;
+    private volatile boolean kept;
+    private volatile boolean error;
+
+    LocalTrace(Tracer tracer, String traceId, int maxSpans) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.maxSpans = maxSpans;
+    }
+
+    String getTraceId() {
+        return this.traceId;
+    }
+
+    void setRoot(Span root) {
+        this.root = root;
+    }
+
+    Span getRoot() {
+        return this.root;
+    }
+
+    void keep() {
+        this.kept = true;
+    }
+
+    boolean isKept() {
+        return this.kept;
+    }
+
+    void markError() {
+        this.error = true;
+    }
+
+    boolean hasError() {
+        return this.error;
+    }
+
+    void finished(Span span) {
+        synchronized (this) {
+            if (this.completed) {
+                return;
+            }
+            if (this.spans.size() < this.maxSpans) {
+                this.spans.add(span);
+            }
+            if (span != this.root) {
+                return;
+            }
+            this.completed = true;
+        }
+        this.tracer.complete(this);
+    }
+
+    synchronized List<Span> getSpans() {
+        return new ArrayList<>(this.spans);
+    }
+}
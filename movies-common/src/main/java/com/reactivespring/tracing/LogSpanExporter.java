@@ -0,0 +1,23 @@
+package com.reactivespring.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+@Slf4j
+public class LogSpanExporter implements SpanExporter {
+
+    private final ObjectMapper objectMapper;
+
+    public LogSpanExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void export(String serviceName, List<Span> spans) throws Exception {
+        for (Span span : spans) {
+            log.info("span {}", this.objectMapper.writeValueAsString(span.toZipkin(serviceName)));
+        }
+    }
+}
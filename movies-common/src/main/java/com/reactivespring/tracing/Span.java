@@ -0,0 +1,100 @@
+package com.reactivespring.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//One timed hop. The current span travels in the Reactor Context under Span.class; child spans
+//share the local trace of the request they belong to.
+public class Span {
+
+    private final LocalTrace trace;
+    private final String spanId;
+    private final String parentId;
+    private final String kind;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final Map<String, String> tags = new ConcurrentHashMap<>();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile String name;
+    private volatile long durationMicros;
+
+    Span(LocalTrace trace, String spanId, String parentId, String name, String kind) {
+        this.trace = trace;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+        this.startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    public Span child(String name, String kind) {
+        return new Span(this.trace, Tracer.newSpanId(), this.spanId, name, kind);
+    }
+
+    public String getTraceId() {
+        return this.trace.getTraceId();
+    }
+
+    public String getSpanId() {
+        return this.spanId;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Span tag(String key, String value) {
+        if (value != null) {
+            this.tags.put(key, value);
+        }
+        return this;
+    }
+
+    public void markError(String error) {
+        tag("error", error);
+        this.trace.markError();
+    }
+
+    //A downstream service kept its part of the trace, so this part is kept as well
+    public void keepTrace() {
+        this.trace.keep();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - this.startNanos;
+    }
+
+    public void finish() {
+        if (this.finished.compareAndSet(false, true)) {
+            this.durationMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos()));
+            this.trace.finished(this);
+        }
+    }
+
+    LocalTrace getTrace() {
+        return this.trace;
+    }
+
+    //Zipkin v2 JSON model
+    Map<String, Object> toZipkin(String serviceName) {
+        Map<String, Object> span = new LinkedHashMap<>();
+        span.put("traceId", getTraceId());
+        span.put("id", this.spanId);
+        if (this.parentId != null) {
+            span.put("parentId", this.parentId);
+        }
+        span.put("name", this.name);
+        span.put("kind", this.kind);
+        span.put("timestamp", this.startEpochMicros);
+        span.put("duration", this.durationMicros);
+        span.put("localEndpoint", Map.of("serviceName", serviceName));
+        if (!this.tags.isEmpty()) {
+            span.put("tags", new LinkedHashMap<>(this.tags));
+        }
+        return span;
+    }
+}
@@ -0,0 +1,9 @@
+package com.reactivespring.tracing;
+
+import java.util.List;
+
+//Called from the tracer's export thread only, so implementations may block
+public interface SpanExporter {
+
+    void export(String serviceName, List<Span> spans) throws Exception;
+}
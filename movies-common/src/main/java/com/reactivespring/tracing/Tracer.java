@@ -0,0 +1,178 @@
+package com.reactivespring.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//W3C trace context ids with tail sampling: every span is recorded, and when a request's server span
+//finishes its spans are exported only if the request was slow, failed, or a downstream service kept
+//its own part (flagged back in the traceresponse header). The verdict is taken at response commit so
+//it can be returned to the caller. Export runs on its own thread from a bounded queue.
+@Slf4j
+public class Tracer {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String TRACERESPONSE = "traceresponse";
+
+    private static final int EXPORT_BATCH_SIZE = 1000;
+
+    private final boolean enabled;
+    private final String serviceName;
+    private final long slowThresholdNanos;
+    private final int maxSpansPerTrace;
+    private final SpanExporter exporter;
+    private final BlockingQueue<Span> exportQueue;
+    private final ScheduledExecutorService exportExecutor;
+    private final LongAdder tracesKept = new LongAdder();
+    private final LongAdder tracesDropped = new LongAdder();
+    private final LongAdder spansExported = new LongAdder();
+    private final LongAdder spansDropped = new LongAdder();
+    private final LongAdder exportFailures = new LongAdder();
+
+    public Tracer(boolean enabled, String serviceName, Duration slowThreshold, int maxSpansPerTrace,
+                  int maxQueuedSpans, Duration exportInterval, SpanExporter exporter) {
+        this.enabled = enabled;
+        this.serviceName = serviceName;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.exporter = exporter;
+        this.exportQueue = new ArrayBlockingQueue<>(maxQueuedSpans);
+        this.exportExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "span-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.exportExecutor.scheduleWithFixedDelay(this::flush, exportInterval.toMillis(), exportInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    //Continues the caller's trace when traceparent is valid, otherwise starts a new one.
+    //A caller that already sampled the trace (flag 01) has it kept here too.
+    public Span startServerSpan(String traceparent, String name) {
+        String[] parts = parse(traceparent);
+        LocalTrace trace = new LocalTrace(this, parts != null ? parts[1] : newTraceId(), this.maxSpansPerTrace);
+        if (parts != null && isSampledFlag(parts[3])) {
+            trace.keep();
+        }
+        Span root = new Span(trace, newSpanId(), parts != null ? parts[2] : null, name, "SERVER");
+        trace.setRoot(root);
+        return root;
+    }
+
+    //The verdict a backend returns is taken early, when its response commits. A backend that only turns
+    //slow or fails while streaming the body afterwards still keeps its own spans on completion, but its
+    //caller was already told the trace was not sampled and may have dropped its part. Spans finishing
+    //after the server span are not held back for the verdict either (see LocalTrace).
+    public String traceresponse(Span span) {
+        return format(span.getTraceId(), span.getSpanId(), shouldKeep(span.getTrace()));
+    }
+
+    void complete(LocalTrace trace) {
+        if (!shouldKeep(trace)) {
+            this.tracesDropped.increment();
+            return;
+        }
+        this.tracesKept.increment();
+        for (Span span : trace.getSpans()) {
+            if (!this.exportQueue.offer(span)) {
+                this.spansDropped.increment();
+            }
+        }
+    }
+
+    private boolean shouldKeep(LocalTrace trace) {
+        if (trace.isKept() || trace.hasError() || trace.getRoot().elapsedNanos() >= this.slowThresholdNanos) {
+            trace.keep();
+            return true;
+        }
+        return false;
+    }
+
+    private void flush() {
+        List<Span> batch = new ArrayList<>();
+        while (this.exportQueue.drainTo(batch, EXPORT_BATCH_SIZE) > 0) {
+            try {
+                this.exporter.export(this.serviceName, batch);
+                this.spansExported.add(batch.size());
+            } catch (Exception ex) {
+                this.exportFailures.increment();
+                log.warn("Span export failed, dropping {} spans : {}", batch.size(), ex.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    public void close() {
+        this.exportExecutor.shutdown();
+        flush();
+    }
+
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("tracesKept", this.tracesKept.sum());
+        stats.put("tracesDropped", this.tracesDropped.sum());
+        stats.put("spansExported", this.spansExported.sum());
+        stats.put("spansDropped", this.spansDropped.sum());
+        stats.put("spansQueued", this.exportQueue.size());
+        stats.put("exportFailures", this.exportFailures.sum());
+        return stats;
+    }
+
+    public static String format(String traceId, String spanId, boolean sampled) {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    public static boolean isSampled(String header) {
+        String[] parts = parse(header);
+        return parts != null && isSampledFlag(parts[3]);
+    }
+
+    //version-traceid-spanid-flags, e.g. 00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01
+    private static String[] parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        String[] parts = header.trim().split("-");
+        if (parts.length < 4 || parts[1].length() != 32 || parts[2].length() != 16 || parts[3].length() != 2
+                || !isHex(parts[1]) || !isHex(parts[2]) || !isHex(parts[3])) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static boolean isSampledFlag(String flags) {
+        return (Integer.parseInt(flags, 16) & 1) == 1;
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String newTraceId() {
+        return newSpanId() + newSpanId();
+    }
+
+    static String newSpanId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong() | 1L);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
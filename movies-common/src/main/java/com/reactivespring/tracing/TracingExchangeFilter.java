@@ -0,0 +1,41 @@
+package com.reactivespring.tracing;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+//Client span for every WebClient call made on behalf of a traced request: sends traceparent and picks up
+//the callee's sampling verdict from traceresponse. The span ends when the response headers arrive.
+public class TracingExchangeFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            Optional<Span> parent = context.getOrEmpty(Span.class);
+            if (parent.isEmpty()) {
+                return next.exchange(request);
+            }
+            Span span = parent.get().child(request.method() + " " + request.url().getHost() + request.url().getPath(), "CLIENT")
+                    .tag("http.url", request.url().toString());
+            ClientRequest tracedRequest = ClientRequest.from(request)
+                    .header(Tracer.TRACEPARENT, Tracer.format(span.getTraceId(), span.getSpanId(), false))
+                    .build();
+            return next.exchange(tracedRequest)
+                    .doOnNext(response -> {
+                        span.tag("http.status_code", String.valueOf(response.rawStatusCode()));
+                        if (response.rawStatusCode() >= 500) {
+                            span.markError(String.valueOf(response.rawStatusCode()));
+                        }
+                        if (Tracer.isSampled(response.headers().asHttpHeaders().getFirst(Tracer.TRACERESPONSE))) {
+                            span.keepTrace();
+                        }
+                    })
+                    .doOnError(ex -> span.markError(ex.getClass().getSimpleName()))
+                    .doFinally(signalType -> span.finish());
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactivespring.tracing;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Optional;
+
+//Wraps every repository so each Mongo query issued for a traced request gets its own client span,
+//named after the repository method. Outside a traced request the publishers pass through untouched.
+public class TracingRepositoryPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository)) {
+            return bean;
+        }
+        Class<?>[] repositoryInterfaces = Arrays.stream(ClassUtils.getAllInterfaces(bean))
+                .filter(Repository.class::isAssignableFrom)
+                .toArray(Class<?>[]::new);
+        String repositoryName = repositoryInterfaces[0].getSimpleName();
+        return Proxy.newProxyInstance(repositoryInterfaces[0].getClassLoader(), repositoryInterfaces, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(bean, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            String spanName = "mongo " + repositoryName + "." + method.getName();
+            if (result instanceof Mono) {
+                return traced((Mono<?>) result, spanName);
+            }
+            if (result instanceof Flux) {
+                return traced((Flux<?>) result, spanName);
+            }
+            return result;
+        });
+    }
+
+    private static <T> Mono<T> traced(Mono<T> query, String spanName) {
+        return Mono.deferContextual(context -> {
+            Optional<Span> parent = context.getOrEmpty(Span.class);
+            if (parent.isEmpty()) {
+                return query;
+            }
+            Span span = parent.get().child(spanName, "CLIENT").tag("db.system", "mongodb");
+            return query
+                    .doOnError(ex -> span.markError(ex.getClass().getSimpleName()))
+                    .doFinally(signalType -> span.finish());
+        });
+    }
+
+    private static <T> Flux<T> traced(Flux<T> query, String spanName) {
+        return Flux.deferContextual(context -> {
+            Optional<Span> parent = context.getOrEmpty(Span.class);
+            if (parent.isEmpty()) {
+                return query;
+            }
+            Span span = parent.get().child(spanName, "CLIENT").tag("db.system", "mongodb");
+            return query
+                    .doOnError(ex -> span.markError(ex.getClass().getSimpleName()))
+                    .doFinally(signalType -> span.finish());
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package com.reactivespring.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+//AIMD concurrency limit. Work holds a permit while in flight and anything beyond the current limit is
+//rejected straight away instead of queueing. A completion within maxLatency grows the limit by roughly
+//one per limit's worth of completions; a slower or overloaded one cuts it by backoffRatio, at most once
+//per maxLatency, so a single burst of slow responses doesn't collapse the limit to its floor.
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxLatencyNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+    private volatile double limit;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                                      long maxLatencyMillis, double backoffRatio) {
+        this.name = name;
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxLatencyNanos = maxLatencyMillis * 1_000_000;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime() - this.maxLatencyNanos;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public boolean tryAcquire() {
+        if (!this.enabled) {
+            return true;
+        }
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= (int) this.limit) {
+                this.rejected.increment();
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                this.accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean overloaded) {
+        if (!this.enabled) {
+            return;
+        }
+        int wasInFlight = this.inFlight.getAndDecrement();
+        synchronized (this) {
+            if (overloaded || latencyNanos > this.maxLatencyNanos) {
+                long now = System.nanoTime();
+                if (now - this.lastDecreaseNanos >= this.maxLatencyNanos) {
+                    this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+                    this.lastDecreaseNanos = now;
+                    this.decreases.increment();
+                }
+            } else if (wasInFlight * 2 >= this.limit) {
+                //only grow while the limit is actually being used
+                this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+            }
+        }
+    }
+
+    public <T> Mono<T> wrap(Mono<T> source, Predicate<Throwable> isOverload, Supplier<? extends RuntimeException> rejection) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(rejection.get());
+            }
+            long start = System.nanoTime();
+            AtomicBoolean overloaded = new AtomicBoolean();
+            return source
+                    .doOnError(ex -> overloaded.set(isOverload.test(ex)))
+                    .doFinally(signalType -> release(System.nanoTime() - start, overloaded.get()));
+        });
+    }
+
+    public <T> Flux<T> wrap(Flux<T> source, Predicate<Throwable> isOverload, Supplier<? extends RuntimeException> rejection) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(rejection.get());
+            }
+            long start = System.nanoTime();
+            AtomicBoolean overloaded = new AtomicBoolean();
+            return source
+                    .doOnError(ex -> overloaded.set(isOverload.test(ex)))
+                    .doFinally(signalType -> release(System.nanoTime() - start, overloaded.get()));
+        });
+    }
+
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("limit", getLimit());
+        stats.put("inFlight", this.inFlight.get());
+        stats.put("accepted", this.accepted.sum());
+        stats.put("rejected", this.rejected.sum());
+        stats.put("decreases", this.decreases.sum());
+        return stats;
+    }
+}
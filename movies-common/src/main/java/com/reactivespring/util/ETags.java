@@ -0,0 +1,88 @@
+package com.reactivespring.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Strong entity tags derived from document content. The same values always hash to the same tag, so
+//every service computes identical tags for identical content without sharing any state. The field
+//lists of ofMovieInfo and ofReview are that contract: each service passes its own domain object's values.
+public final class ETags {
+
+    private static final char SEPARATOR = '\u001f';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ETags() {
+    }
+
+    public static String ofMovieInfo(String name, Integer year, List<String> cast, LocalDate releaseDate) {
+        return hash(name, year, cast, releaseDate);
+    }
+
+    public static String ofReview(Long movieInfoId, String comment, Double rating) {
+        return hash(movieInfoId, comment, rating);
+    }
+
+    //first 16 bytes of a SHA-256 over the values, hex encoded
+    public static String hash(Object... values) {
+        StringBuilder content = new StringBuilder();
+        for (Object value : values) {
+            content.append(value == null ? "" : value).append(SEPARATOR);
+        }
+        byte[] digest = sha256().digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    //Order-insensitive, so a list reordered by the store or a read model keeps its tag
+    public static String combine(Collection<String> etags) {
+        return hash(etags.stream().sorted().collect(Collectors.joining(",")));
+    }
+
+    //If-None-Match may carry several validators, weak ones, or *
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        List<String> candidates = candidates(ifNoneMatch);
+        return candidates.contains("*") || candidates.contains(etag);
+    }
+
+    public static List<String> candidates(String ifNoneMatch) {
+        List<String> candidates = new ArrayList<>();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tag = tag.substring(1, tag.length() - 1);
+            }
+            if (!tag.isEmpty()) {
+                candidates.add(tag);
+            }
+        }
+        return candidates;
+    }
+
+    public static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.reactivespring.util;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+//Group commit: single-document inserts from independent callers are gathered into unordered insertMany
+//batches, flushed when maxBatchSize documents are waiting or maxDelay has passed since the first one.
+//Each caller's Mono completes only once its batch is acknowledged, and fails only if its own document
+//was rejected or the batch missed its write concern, so callers see the same outcome as with one insert each. close() flushes the documents already
+//waiting; writes after it fail.
+@Slf4j
+public class GroupCommitWriter<T> {
+
+    private final Mono<MongoCollection<T>> collection;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private FluxSink<Pending<T>> pending;
+    private boolean closed;
+
+    public GroupCommitWriter(Mono<MongoCollection<T>> collection, int maxBatchSize, Duration maxDelay, int maxInFlight) {
+        this.collection = collection;
+        Flux.<Pending<T>>create(sink -> this.pending = sink)
+                .bufferTimeout(maxBatchSize, maxDelay)
+                //bufferTimeout cannot hold a batch back when downstream has no demand, so queue finished batches here
+                .onBackpressureBuffer()
+                .flatMap(this::flush, maxInFlight)
+                .subscribe();
+    }
+
+    //The document must already carry its id; Mongo-generated ids would not be visible to the caller.
+    public Mono<T> write(T document) {
+        return Mono.create(sink -> {
+            synchronized (this) {
+                if (this.closed) {
+                    sink.error(new IllegalStateException("Group commit writer is closed"));
+                    return;
+                }
+                this.pending.next(new Pending<>(document, sink));
+            }
+        });
+    }
+
+    public long batchCount() {
+        return this.batches.sum();
+    }
+
+    public long documentCount() {
+        return this.documents.sum();
+    }
+
+    public synchronized void close() {
+        if (!this.closed) {
+            this.closed = true;
+            this.pending.complete();
+        }
+    }
+
+    private Mono<Void> flush(List<Pending<T>> batch) {
+        List<T> batchDocuments = batch.stream().map(Pending::getDocument).collect(Collectors.toList());
+        return this.collection
+                .flatMap(target -> Mono.from(target.insertMany(batchDocuments, new InsertManyOptions().ordered(false))))
+                .doOnSuccess(result -> {
+                    this.batches.increment();
+                    this.documents.add(batch.size());
+                    batch.forEach(Pending::succeed);
+                })
+                .onErrorResume(ex -> {
+                    fail(batch, ex);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void fail(List<Pending<T>> batch, Throwable ex) {
+        if (!(ex instanceof MongoBulkWriteException)) {
+            log.error("Group commit of {} documents failed", batch.size(), ex);
+            batch.forEach(entry -> entry.fail(ex));
+            return;
+        }
+        MongoBulkWriteException bulkWriteException = (MongoBulkWriteException) ex;
+        //the inserts may have been applied, but not with the requested durability
+        if (bulkWriteException.getWriteConcernError() != null) {
+            log.error("Group commit of {} documents failed its write concern", batch.size(), ex);
+            batch.forEach(entry -> entry.fail(ex));
+            return;
+        }
+        //unordered: every document without its own write error was inserted
+        Set<Integer> rejected = bulkWriteException.getWriteErrors().stream()
+                .map(BulkWriteError::getIndex)
+                .collect(Collectors.toSet());
+        for (int i = 0; i < batch.size(); i++) {
+            if (rejected.contains(i)) {
+                batch.get(i).fail(ex);
+            } else {
+                batch.get(i).succeed();
+            }
+        }
+    }
+
+    private static class Pending<T> {
+        private final T document;
+        private final MonoSink<T> sink;
+
+        private Pending(T document, MonoSink<T> sink) {
+            this.document = document;
+            this.sink = sink;
+        }
+
+        private T getDocument() {
+            return this.document;
+        }
+
+        private void succeed() {
+            this.sink.success(this.document);
+        }
+
+        private void fail(Throwable ex) {
+            this.sink.error(ex);
+        }
+    }
+}
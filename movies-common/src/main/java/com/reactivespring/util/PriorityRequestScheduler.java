@@ -0,0 +1,199 @@
+package com.reactivespring.util;
+
+import com.reactivespring.filter.RequestClass;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Per request class concurrency quota with its own bounded FIFO queue. A freed slot goes to the waiters
+//of the highest class first, and a lower class is not admitted beyond its reserved share while a higher
+//one has waiters, so bulk work backs off as soon as interactive reads start queueing. The reserved share
+//keeps a sustained interactive backlog from starving writes and exports outright. The lock is only held
+//for bookkeeping; waiters are resumed outside it.
+public class PriorityRequestScheduler {
+
+    private final boolean enabled;
+    private final Duration maxQueueWait;
+    private final Map<RequestClass, Lane> lanes = new EnumMap<>(RequestClass.class);
+
+    public PriorityRequestScheduler(boolean enabled, Duration maxQueueWait, Map<RequestClass, Quota> quotas) {
+        this.enabled = enabled;
+        this.maxQueueWait = maxQueueWait;
+        for (RequestClass requestClass : RequestClass.values()) {
+            Quota quota = quotas.get(requestClass);
+            if (quota == null) {
+                throw new IllegalArgumentException("no quota for " + requestClass);
+            }
+            this.lanes.put(requestClass, new Lane(quota));
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    //Emits a permit once a slot is free; fails with RejectedExecutionException when the queue is full
+    //or the wait exceeds maxQueueWait. A permit granted to a cancelled waiter is discarded and released.
+    public Mono<Permit> acquire(RequestClass requestClass) {
+        if (!this.enabled) {
+            return Mono.just(new Permit(this, requestClass, false));
+        }
+        return Mono.<Permit>create(sink -> {
+                    Permit permit = null;
+                    boolean queued = false;
+                    synchronized (this) {
+                        Lane lane = this.lanes.get(requestClass);
+                        if (lane.queue.isEmpty() && lane.canAdmit(higherClassWaiting(requestClass))) {
+                            lane.inFlight++;
+                            lane.admitted++;
+                            permit = new Permit(this, requestClass, true);
+                        } else if (lane.queue.size() >= lane.quota.maxQueue) {
+                            lane.rejected++;
+                        } else {
+                            lane.queue.add(sink);
+                            queued = true;
+                        }
+                    }
+                    if (queued) {
+                        sink.onCancel(() -> cancel(requestClass, sink));
+                    } else if (permit != null) {
+                        sink.success(permit);
+                    } else {
+                        sink.error(new RejectedExecutionException(requestClass + " queue is full"));
+                    }
+                })
+                .doOnDiscard(Permit.class, Permit::release)
+                .timeout(this.maxQueueWait, Mono.error(() -> new RejectedExecutionException(requestClass + " queue wait exceeded " + this.maxQueueWait)));
+    }
+
+    private boolean higherClassWaiting(RequestClass requestClass) {
+        for (RequestClass higher : RequestClass.values()) {
+            if (higher == requestClass) {
+                return false;
+            }
+            if (!this.lanes.get(higher).queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void cancel(RequestClass requestClass, MonoSink<Permit> sink) {
+        synchronized (this) {
+            Lane lane = this.lanes.get(requestClass);
+            if (lane.queue.remove(sink)) {
+                lane.cancelled++;
+            }
+        }
+        //a queued lower class may have been held back only by this waiter
+        dispatch();
+    }
+
+    private void release(RequestClass requestClass) {
+        synchronized (this) {
+            this.lanes.get(requestClass).inFlight--;
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        List<MonoSink<Permit>> granted = new ArrayList<>();
+        List<RequestClass> grantedClasses = new ArrayList<>();
+        synchronized (this) {
+            boolean higherWaiting = false;
+            for (RequestClass requestClass : RequestClass.values()) {
+                Lane lane = this.lanes.get(requestClass);
+                while (!lane.queue.isEmpty() && lane.canAdmit(higherWaiting)) {
+                    granted.add(lane.queue.poll());
+                    grantedClasses.add(requestClass);
+                    lane.inFlight++;
+                    lane.admitted++;
+                }
+                higherWaiting |= !lane.queue.isEmpty();
+            }
+        }
+        for (int i = 0; i < granted.size(); i++) {
+            granted.get(i).success(new Permit(this, grantedClasses.get(i), true));
+        }
+    }
+
+    public synchronized Map<String, Map<String, Number>> stats() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        this.lanes.forEach((requestClass, lane) -> {
+            Map<String, Number> laneStats = new LinkedHashMap<>();
+            laneStats.put("maxConcurrent", lane.quota.maxConcurrent);
+            laneStats.put("reserved", lane.quota.reserved);
+            laneStats.put("inFlight", lane.inFlight);
+            laneStats.put("queued", lane.queue.size());
+            laneStats.put("admitted", lane.admitted);
+            laneStats.put("rejected", lane.rejected);
+            laneStats.put("cancelled", lane.cancelled);
+            stats.put(requestClass.name().toLowerCase(), laneStats);
+        });
+        return stats;
+    }
+
+    public static class Permit {
+
+        private final PriorityRequestScheduler scheduler;
+        private final RequestClass requestClass;
+        private final AtomicBoolean held;
+
+        private Permit(PriorityRequestScheduler scheduler, RequestClass requestClass, boolean held) {
+            this.scheduler = scheduler;
+            this.requestClass = requestClass;
+            this.held = new AtomicBoolean(held);
+        }
+
+        public void release() {
+            if (this.held.compareAndSet(true, false)) {
+                this.scheduler.release(this.requestClass);
+            }
+        }
+    }
+
+    //A class's share: at most maxConcurrent in flight and maxQueue waiting, of which reserved are still
+    //admitted while a higher class has waiters
+    public static final class Quota {
+
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final int reserved;
+
+        public Quota(int maxConcurrent, int maxQueue, int reserved) {
+            if (maxConcurrent < 1 || maxQueue < 0 || reserved < 0 || reserved > maxConcurrent) {
+                throw new IllegalArgumentException("quota needs maxConcurrent >= 1, maxQueue >= 0 and 0 <= reserved <= maxConcurrent");
+            }
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.reserved = reserved;
+        }
+    }
+
+    private static class Lane {
+
+        private final Quota quota;
+        private final ArrayDeque<MonoSink<Permit>> queue = new ArrayDeque<>();
+        private int inFlight;
+        private long admitted;
+        private long rejected;
+        private long cancelled;
+
+        private Lane(Quota quota) {
+            this.quota = quota;
+        }
+
+        private boolean canAdmit(boolean higherClassWaiting) {
+            return this.inFlight < this.quota.maxConcurrent && (!higherClassWaiting || this.inFlight < this.quota.reserved);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.reactivespring.util;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Groups elements into lists of at most maxSize. A group goes out once it is full, once its first element
+//has waited maxDelay, or when the source ends. Unlike bufferTimeout, a group that falls due while the
+//consumer has no demand simply waits for the next request, and at most maxSize elements are pulled
+//ahead of the consumer, so a slow consumer neither overflows nor buffers the whole source.
+public final class ReadyBatcher {
+
+    private ReadyBatcher() {
+    }
+
+    public static <T> Flux<List<T>> batch(Publisher<? extends T> source, int maxSize, Duration maxDelay) {
+        return Flux.<List<T>>from(actual -> source.subscribe(new BatchSubscriber<T>(actual, maxSize, maxDelay.toMillis(), Schedulers.parallel())));
+    }
+
+    private static final class BatchSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        private final Subscriber<? super List<T>> actual;
+        private final int maxSize;
+        private final long maxDelayMillis;
+        private final Scheduler scheduler;
+
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong window = new AtomicLong();
+
+        private Subscription upstream;
+        private Disposable timer;
+        private volatile boolean due;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private Throwable error;
+
+        BatchSubscriber(Subscriber<? super List<T>> actual, int maxSize, long maxDelayMillis, Scheduler scheduler) {
+            this.actual = actual;
+            this.maxSize = maxSize;
+            this.maxDelayMillis = maxDelayMillis;
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public Context currentContext() {
+            return this.actual instanceof CoreSubscriber
+                    ? ((CoreSubscriber<?>) this.actual).currentContext()
+                    : Context.empty();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.upstream = subscription;
+            this.actual.onSubscribe(this);
+            subscription.request(this.maxSize);
+        }
+
+        @Override
+        public void onNext(T element) {
+            this.queue.offer(element);
+            this.queued.incrementAndGet();
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            this.done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                return;
+            }
+            this.requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.upstream.cancel();
+            drain();
+        }
+
+        //Only one thread at a time runs the loop; signals arriving meanwhile make it go round again
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (; ; ) {
+                if (this.cancelled) {
+                    stopTimer();
+                    this.queue.clear();
+                    return;
+                }
+                boolean finished = this.done;
+                int size = this.queued.get();
+                if (finished && size == 0) {
+                    stopTimer();
+                    if (this.error != null) {
+                        this.actual.onError(this.error);
+                    } else {
+                        this.actual.onComplete();
+                    }
+                    return;
+                }
+                if (size > 0 && this.requested.get() > 0 && (size >= this.maxSize || this.due || finished)) {
+                    emit(Math.min(size, this.maxSize), finished);
+                    continue;
+                }
+                if (size > 0 && this.timer == null && !finished) {
+                    long current = this.window.get();
+                    this.timer = this.scheduler.schedule(() -> {
+                        if (this.window.get() == current) {
+                            this.due = true;
+                            drain();
+                        }
+                    }, this.maxDelayMillis, TimeUnit.MILLISECONDS);
+                }
+                missed = this.wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void emit(int count, boolean finished) {
+            List<T> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(this.queue.poll());
+            }
+            this.queued.addAndGet(-count);
+            this.due = false;
+            stopTimer();
+            if (this.requested.get() != Long.MAX_VALUE) {
+                this.requested.decrementAndGet();
+            }
+            this.actual.onNext(batch);
+            if (!finished) {
+                this.upstream.request(count);
+            }
+        }
+
+        //A timer that already fired for a closed window must not mark the next one due
+        private void stopTimer() {
+            this.window.incrementAndGet();
+            if (this.timer != null) {
+                this.timer.dispose();
+                this.timer = null;
+            }
+        }
+    }
+}
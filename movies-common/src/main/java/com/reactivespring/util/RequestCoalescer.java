@@ -0,0 +1,39 @@
+package com.reactivespring.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+//Single-flight: concurrent callers for the same key share one in-flight publisher.
+//The upstream is cancelled only when every caller has cancelled (refCount), and the key
+//is released as soon as the upstream terminates, so later callers trigger a fresh call.
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, Flux<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> mono(K key, Supplier<Mono<V>> supplier) {
+        return flux(key, () -> supplier.get().flux()).next();
+    }
+
+    public Flux<V> flux(K key, Supplier<Flux<V>> supplier) {
+        return Flux.defer(() -> this.inFlight.computeIfAbsent(key, k -> share(k, supplier.get())));
+    }
+
+    public int inFlightCount() {
+        return this.inFlight.size();
+    }
+
+    private Flux<V> share(K key, Flux<V> source) {
+        AtomicReference<Flux<V>> self = new AtomicReference<>();
+        Flux<V> shared = source
+                .doFinally(signalType -> this.inFlight.remove(key, self.get()))
+                .replay()
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+}
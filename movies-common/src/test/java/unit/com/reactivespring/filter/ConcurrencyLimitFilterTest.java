@@ -0,0 +1,40 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", true, 1, 1, 1, 1000, 0.9);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(this.limiter, new StreamRoutes("/v1/movie/stream"));
+
+    @Test
+    void exemptsOnlyTheListedStreamsAndInternalEndpoints() {
+        assertTrue(this.filter.isExempt(MockServerHttpRequest.get("/v1/movie/stream").build()));
+        assertTrue(this.filter.isExempt(MockServerHttpRequest.get("/internal/metrics").build()));
+        assertFalse(this.filter.isExempt(MockServerHttpRequest.get("/v1/movie/abc/stream").build()));
+        assertFalse(this.filter.isExempt(MockServerHttpRequest.get("/v1/movie/abc")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .build()));
+    }
+
+    @Test
+    void ndjsonExportHoldsAPermit() {
+        MockServerWebExchange export = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movie/abc/stream")
+                .accept(MediaType.APPLICATION_NDJSON));
+        MockServerWebExchange next = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movie/def"));
+        WebFilterChain whileExporting = exchange -> this.filter.filter(next, ignored -> Mono.empty());
+
+        this.filter.filter(export, whileExporting).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, next.getResponse().getStatusCode());
+    }
+}
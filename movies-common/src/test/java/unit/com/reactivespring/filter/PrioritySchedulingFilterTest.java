@@ -0,0 +1,40 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.PriorityRequestScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrioritySchedulingFilterTest {
+
+    //one slot per class and no queue, so a second request is rejected while the first holds its slot
+    private final PriorityRequestScheduler scheduler = new PriorityRequestScheduler(true, Duration.ofSeconds(5), Map.of(
+            RequestClass.INTERACTIVE, new PriorityRequestScheduler.Quota(1, 0, 0),
+            RequestClass.WRITE, new PriorityRequestScheduler.Quota(1, 0, 0),
+            RequestClass.BULK, new PriorityRequestScheduler.Quota(1, 0, 0)));
+    private final PrioritySchedulingFilter filter = new PrioritySchedulingFilter(this.scheduler,
+            new StreamRoutes("/v1/movie-info/stream"), new RequestClassifier("/v1/movie-info", "limit")::classify);
+
+    @Test
+    void internalEndpointsAndStreamsSkipTheQueue() {
+        this.scheduler.acquire(RequestClass.INTERACTIVE).block();
+
+        MockServerWebExchange internal = MockServerWebExchange.from(MockServerHttpRequest.get("/internal/metrics"));
+        MockServerWebExchange stream = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movie-info/stream"));
+        MockServerWebExchange lookup = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movie-info/abc"));
+        this.filter.filter(internal, exchange -> Mono.empty()).block();
+        this.filter.filter(stream, exchange -> Mono.empty()).block();
+        this.filter.filter(lookup, exchange -> Mono.empty()).block();
+
+        assertNull(internal.getResponse().getStatusCode());
+        assertNull(stream.getResponse().getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, lookup.getResponse().getStatusCode());
+    }
+}
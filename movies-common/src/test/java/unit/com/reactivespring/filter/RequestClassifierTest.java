@@ -0,0 +1,43 @@
+package com.reactivespring.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestClassifierTest {
+
+    private final RequestClassifier movieInfo = new RequestClassifier("/v1/movie-info", "limit");
+    private final RequestClassifier review = new RequestClassifier("/v1/review", "movieInfoId");
+
+    @Test
+    void lookupsAndBoundedListingsAreInteractive() {
+        assertEquals(RequestClass.INTERACTIVE, movieInfo.classify(MockServerHttpRequest.get("/v1/movie-info/abc").build()));
+        assertEquals(RequestClass.INTERACTIVE, movieInfo.classify(MockServerHttpRequest.get("/v1/movie-info/search?q=dark").build()));
+        assertEquals(RequestClass.INTERACTIVE, movieInfo.classify(MockServerHttpRequest.get("/v1/movie-info?limit=10").build()));
+        assertEquals(RequestClass.INTERACTIVE, review.classify(MockServerHttpRequest.get("/v1/review?movieInfoId=1").build()));
+        assertEquals(RequestClass.INTERACTIVE, review.classify(MockServerHttpRequest.get("/v1/hello").build()));
+    }
+
+    @Test
+    void mutationsAreWrites() {
+        assertEquals(RequestClass.WRITE, movieInfo.classify(MockServerHttpRequest.post("/v1/movie-info").build()));
+        assertEquals(RequestClass.WRITE, movieInfo.classify(MockServerHttpRequest.put("/v1/movie-info/abc").build()));
+        assertEquals(RequestClass.WRITE, movieInfo.classify(MockServerHttpRequest.delete("/v1/movie-info/abc").build()));
+        assertEquals(RequestClass.WRITE, review.classify(MockServerHttpRequest.post("/v1/review").build()));
+    }
+
+    @Test
+    void exportsAreBulk() {
+        assertEquals(RequestClass.BULK, movieInfo.classify(MockServerHttpRequest.get("/v1/movie-info").build()));
+        assertEquals(RequestClass.BULK, movieInfo.classify(MockServerHttpRequest.get("/v1/movie-info?year=2005").build()));
+        assertEquals(RequestClass.BULK, movieInfo.classify(MockServerHttpRequest.get("/v1/movie-info?limit=10")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .build()));
+        assertEquals(RequestClass.BULK, review.classify(MockServerHttpRequest.get("/v1/review").build()));
+        assertEquals(RequestClass.BULK, review.classify(MockServerHttpRequest.get("/v1/review?movieInfoId=1&limit=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .build()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.metrics.PrometheusText;
+import com.reactivespring.metrics.RequestMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestMetricsFilterTest {
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+    private final RequestMetricsFilter filter = new RequestMetricsFilter(this.requestMetrics, new StreamRoutes("/v1/movie/stream"));
+
+    @Test
+    void leavesEventStreamsOutOfRequestLatency() {
+        this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movie/stream")), exchange -> Mono.empty()).block();
+        this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movie/abc")), exchange -> Mono.empty()).block();
+
+        PrometheusText text = new PrometheusText();
+        this.requestMetrics.writeTo(text);
+
+        assertTrue(text.toString().contains("http_server_requests_seconds_count{method=\"GET\",route=\"unmatched\"} 1\n"));
+        assertFalse(text.toString().contains("route=\"unmatched\"} 2\n"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.reactivespring.filter;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseKeepAliveFilterTest {
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private final SseKeepAliveFilter filter = new SseKeepAliveFilter(true, Duration.ofSeconds(15), Duration.ofSeconds(45),
+            Duration.ofSeconds(1), Duration.ofSeconds(4), false, 64, Duration.ofMillis(5));
+
+    @Test
+    void sendsHeartbeatsWhileStreamIsQuiet() {
+        AtomicBoolean reclaimed = new AtomicBoolean();
+
+        StepVerifier.withVirtualTime(() -> frames(this.filter.keepAlive(Flux.never(), this.bufferFactory, () -> reclaimed.set(true))))
+                .thenAwait(Duration.ofSeconds(15))
+                .assertNext(frame -> assertTrue(frame.startsWith(":heartbeat\nretry:")))
+                .thenAwait(Duration.ofSeconds(15))
+                .expectNextCount(1)
+                .thenCancel()
+                .verify();
+
+        assertFalse(reclaimed.get());
+        assertEquals(2L, this.filter.stats().get("heartbeats"));
+        assertEquals(1L, this.filter.stats().get("cancelled"));
+        assertEquals(0, this.filter.stats().get("active"));
+    }
+
+    @Test
+    void reclaimsStreamThatStopsReading() {
+        AtomicBoolean reclaimed = new AtomicBoolean();
+
+        //No demand: the writer never takes a frame
+        StepVerifier.withVirtualTime(() -> this.filter.keepAlive(Flux.never(), this.bufferFactory, () -> reclaimed.set(true)), 0)
+                .thenAwait(Duration.ofSeconds(45))
+                .verifyComplete();
+
+        assertTrue(reclaimed.get());
+        assertEquals(0L, this.filter.stats().get("heartbeats"));
+        assertEquals(1L, this.filter.stats().get("idleTimeouts"));
+    }
+
+    @Test
+    void completesWithTheEvents() {
+        Flux<Publisher<DataBuffer>> events = Flux.just(Mono.fromSupplier(() -> this.bufferFactory.wrap("data:movie\n\n".getBytes(StandardCharsets.UTF_8))));
+
+        StepVerifier.withVirtualTime(() -> frames(this.filter.keepAlive(events, this.bufferFactory, () -> {
+                })))
+                .expectNext("data:movie\n\n")
+                .verifyComplete();
+
+        assertEquals(0, this.filter.stats().get("active"));
+    }
+
+    @Test
+    void joinsReadyFramesIntoOneWrite() {
+        Flux<Publisher<DataBuffer>> events = Flux.just("data:a\n\n", "data:b\n\n")
+                .map(frame -> Mono.fromSupplier(() -> this.bufferFactory.wrap(frame.getBytes(StandardCharsets.UTF_8))));
+
+        //Virtual time, so the maxDelay timer cannot fire between the two frames on a slow machine
+        StepVerifier.withVirtualTime(() -> frames(this.filter.batch(events)))
+                .expectNext("data:a\n\ndata:b\n\n")
+                .verifyComplete();
+
+        assertEquals(1L, this.filter.stats().get("batches"));
+        assertEquals(2L, this.filter.stats().get("batchedFrames"));
+    }
+
+    private static Flux<String> frames(Flux<Publisher<? extends DataBuffer>> body) {
+        return body.concatMap(Flux::from)
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,46 @@
+package com.reactivespring.metrics;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorMetricsTest {
+
+    private static final ConnectionDescription CONNECTION = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    @Test
+    void countsEveryBatchButSizesOnlySamples() {
+        CursorMetrics metrics = new CursorMetrics(10);
+
+        for (int i = 0; i < 25; i++) {
+            metrics.commandSucceeded(new CommandSucceededEvent(i, CONNECTION, "getMore", batch("nextBatch", 3), 1_000));
+        }
+
+        Map<String, Number> getMore = metrics.stats().get("getMore");
+        assertEquals(25L, getMore.get("roundTrips"));
+        assertEquals(75L, getMore.get("documents"));
+        assertEquals(3L, getMore.get("sampledBatches"));
+        assertTrue(getMore.get("avgBytesPerBatch").longValue() > 0);
+        assertEquals(0L, metrics.stats().get("find").get("roundTrips"));
+    }
+
+    private static BsonDocument batch(String field, int size) {
+        BsonArray documents = IntStream.range(0, size)
+                .mapToObj(i -> new BsonDocument("n", new BsonInt32(i)))
+                .collect(Collectors.toCollection(BsonArray::new));
+        return new BsonDocument("cursor", new BsonDocument(field, documents));
+    }
+}
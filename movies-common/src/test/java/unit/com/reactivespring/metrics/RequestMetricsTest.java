@@ -0,0 +1,76 @@
+package com.reactivespring.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestMetricsTest {
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    @Test
+    void writesRouteLatencyAndStatusCounts() {
+        requestMetrics.recordRequest(HttpMethod.GET, "/v1/movies/{id}", 200, TimeUnit.MILLISECONDS.toNanos(5));
+        requestMetrics.recordRequest(HttpMethod.GET, "/v1/movies/{id}", 200, TimeUnit.MILLISECONDS.toNanos(7));
+        requestMetrics.recordRequest(HttpMethod.GET, "/v1/movies/{id}", 404, TimeUnit.MILLISECONDS.toNanos(1));
+
+        String text = write();
+
+        assertTrue(text.contains("# TYPE http_server_requests_seconds summary\n"));
+        assertTrue(text.contains("http_server_requests_seconds_count{method=\"GET\",route=\"/v1/movies/{id}\"} 3\n"));
+        assertTrue(text.contains("http_server_requests_total{method=\"GET\",route=\"/v1/movies/{id}\",status=\"200\"} 2\n"));
+        assertTrue(text.contains("http_server_requests_total{method=\"GET\",route=\"/v1/movies/{id}\",status=\"404\"} 1\n"));
+        assertTrue(text.contains("http_server_requests_seconds{method=\"GET\",route=\"/v1/movies/{id}\",quantile=\"0.5\"} 0.005"));
+    }
+
+    @Test
+    void countsErrorsByExceptionType() {
+        requestMetrics.recordError(new IllegalArgumentException("missing"));
+        requestMetrics.recordError(new IllegalArgumentException("missing"));
+
+        assertTrue(write().contains("http_server_errors_total{exception=\"IllegalArgumentException\"} 2\n"));
+    }
+
+    @Test
+    void timesDownstreamCallsByOutcome() {
+        StepVerifier.create(requestMetrics.timeClient("review", "getAll", Mono.just("ok").delayElement(Duration.ofMillis(20))))
+                .expectNext("ok")
+                .verifyComplete();
+        StepVerifier.create(requestMetrics.timeClient("review", "getAll", Mono.error(new IllegalStateException())))
+                .expectError()
+                .verify();
+
+        String text = write();
+        assertTrue(text.contains("http_client_requests_seconds_count{client=\"review\",operation=\"getAll\",outcome=\"success\"} 1\n"));
+        assertTrue(text.contains("http_client_requests_seconds_count{client=\"review\",operation=\"getAll\",outcome=\"error\"} 1\n"));
+    }
+
+    @Test
+    void quantilesCoverOnlyTheLastMinute() {
+        LatencyTimer timer = new LatencyTimer();
+        long start = System.nanoTime();
+        timer.record(TimeUnit.SECONDS.toNanos(2));
+        timer.snapshot(start);
+        timer.record(TimeUnit.MILLISECONDS.toNanos(5));
+
+        Histogram window = timer.snapshot(start + TimeUnit.SECONDS.toNanos(65));
+
+        assertEquals(1, window.getTotalCount());
+        assertEquals(5000, window.getValueAtPercentile(99), 50);
+        assertEquals(2, timer.totalCount());
+    }
+
+    private String write() {
+        PrometheusText text = new PrometheusText();
+        requestMetrics.writeTo(text);
+        return text.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.reactivespring.metrics;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamStatsTest {
+
+    private final Sinks.Many<Tuple2<Long, String>> sink = Sinks.many().replay().all();
+    private final StreamStats<String> streamStats = new StreamStats<>("test", true, StreamStats::stringBytes);
+
+    @Test
+    void countsEmitResultsAndReplayBuffer() {
+        emit(0, "a");
+        emit(1, "bb");
+        sink.tryEmitComplete();
+        streamStats.recordEmit(sink.tryEmitNext(Tuples.of(2L, "c")), 2, "c");
+
+        Map<String, Number> summary = streamStats.summary();
+        assertEquals(2L, summary.get("emitted"));
+        assertEquals(1L, summary.get("emitFailures"));
+        assertEquals(2L, summary.get("replayBuffered"));
+        assertEquals(83L, summary.get("replayBytesEstimate"));
+    }
+
+    @Test
+    void lastSequenceDoesNotMoveBackwardsWhenEmitsRecordOutOfOrder() {
+        streamStats.recordEmit(Sinks.EmitResult.OK, 1, "b");
+        streamStats.recordEmit(Sinks.EmitResult.OK, 0, "a");
+
+        assertEquals(1L, streamStats.lastSequence());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tracksSubscriberLag() {
+        emit(0, "a");
+        emit(1, "b");
+        emit(2, "c");
+
+        StepVerifier.create(streamStats.track(sink.asFlux(), "sse test", -1, Tuple2::getT1), 1)
+                .expectNextCount(1)
+                .then(() -> {
+                    Map<String, Object> subscriber = ((List<Map<String, Object>>) streamStats.details().get("subscriberDetails")).get(0);
+                    assertEquals("sse test", subscriber.get("subscriber"));
+                    assertEquals(1L, subscriber.get("delivered"));
+                    assertEquals(2L, subscriber.get("lag"));
+                    assertEquals(2L, streamStats.summary().get("maxLag"));
+                })
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, streamStats.summary().get("subscribers"));
+    }
+
+    private void emit(long sequence, String event) {
+        streamStats.recordEmit(sink.tryEmitNext(Tuples.of(sequence, event)), sequence, event);
+    }
+}
@@ -0,0 +1,75 @@
+package com.reactivespring.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracerTest {
+
+    private final List<Span> exported = new CopyOnWriteArrayList<>();
+    private final Tracer tracer = new Tracer(true, "movies-service", Duration.ofMillis(200), 256, 100,
+            Duration.ofHours(1), (serviceName, spans) -> exported.addAll(spans));
+
+    @Test
+    void fastSuccessfulTraceIsDropped() {
+        Span root = tracer.startServerSpan(null, "GET /v1/movies/{id}");
+        root.child("GET movie-info", "CLIENT").finish();
+        root.finish();
+        tracer.close();
+
+        assertTrue(exported.isEmpty());
+        assertEquals(1L, tracer.stats().get("tracesDropped"));
+    }
+
+    @Test
+    void failedTraceIsKeptWithAllSpans() {
+        Span root = tracer.startServerSpan(null, "GET /v1/movies/{id}");
+        Span client = root.child("GET review", "CLIENT");
+        client.markError("500");
+        client.finish();
+        root.finish();
+        tracer.close();
+
+        assertEquals(2, exported.size());
+        assertEquals(root.getSpanId(), exported.get(0).toZipkin("movies-service").get("parentId"));
+    }
+
+    @Test
+    void slowTraceIsKept() throws InterruptedException {
+        Span root = tracer.startServerSpan(null, "GET /v1/movies/{id}");
+        Thread.sleep(250);
+        root.finish();
+        tracer.close();
+
+        assertEquals(1, exported.size());
+    }
+
+    @Test
+    void downstreamVerdictKeepsTrace() {
+        Span root = tracer.startServerSpan(null, "GET /v1/movies/{id}");
+        Span client = root.child("GET movie-info", "CLIENT");
+        client.keepTrace();
+        client.finish();
+        root.finish();
+        tracer.close();
+
+        assertEquals(2, exported.size());
+    }
+
+    @Test
+    void continuesCallersTrace() {
+        String traceparent = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-00";
+        Span root = tracer.startServerSpan(traceparent, "GET /v1/movies/{id}");
+
+        assertEquals("0af7651916cd43dd8448eb211c80319c", root.getTraceId());
+        assertEquals("b7ad6b7169203331", root.toZipkin("movies-service").get("parentId"));
+        assertFalse(Tracer.isSampled(tracer.traceresponse(root)));
+        assertTrue(Tracer.isSampled("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"));
+    }
+}
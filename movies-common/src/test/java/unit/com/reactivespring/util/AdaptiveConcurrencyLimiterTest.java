@@ -0,0 +1,70 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void rejectsBeyondLimitAndReleasesOnCompletion() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", true, 2, 1, 10, 1000, 0.5);
+        Sinks.One<String> pending = Sinks.one();
+
+        limiter.wrap(pending.asMono(), ex -> true, () -> new IllegalStateException("full")).subscribe();
+        limiter.wrap(pending.asMono(), ex -> true, () -> new IllegalStateException("full")).subscribe();
+
+        StepVerifier.create(limiter.wrap(Mono.just("movie"), ex -> true, () -> new IllegalStateException("full")))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(2, limiter.stats().get("inFlight"));
+        assertEquals(1L, limiter.stats().get("rejected"));
+
+        pending.tryEmitValue("done");
+
+        assertEquals(0, limiter.stats().get("inFlight"));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void overloadCutsLimitOncePerWindow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", true, 100, 10, 1000, 60_000, 0.5);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(0, true);
+        }
+
+        assertEquals(50, limiter.getLimit());
+        assertEquals(1L, limiter.stats().get("decreases"));
+    }
+
+    @Test
+    void limitGrowsOnlyWhileUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", true, 1, 1, 10, 1000, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(0, false);
+        assertEquals(2, limiter.getLimit());
+
+        AdaptiveConcurrencyLimiter idle = new AdaptiveConcurrencyLimiter("idle", true, 10, 1, 100, 1000, 0.5);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(idle.tryAcquire());
+            idle.release(0, false);
+        }
+        assertEquals(10, idle.getLimit());
+    }
+
+    @Test
+    void disabledLimiterNeverRejects() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", false, 1, 1, 1, 1000, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertEquals(0L, limiter.stats().get("rejected"));
+    }
+}
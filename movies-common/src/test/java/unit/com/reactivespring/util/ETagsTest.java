@@ -0,0 +1,44 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    void hashIsStableAndContentSensitive() {
+        String etag = ETags.ofMovieInfo("Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15"));
+
+        assertEquals(32, etag.length());
+        assertEquals(etag, ETags.ofMovieInfo("Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")));
+        assertNotEquals(etag, ETags.ofMovieInfo("Batman Begins", 2006, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")));
+    }
+
+    @Test
+    void reviewTagFollowsEveryField() {
+        String etag = ETags.ofReview(1L, "Awesome Movie", 9.0);
+
+        assertNotEquals(etag, ETags.ofReview(2L, "Awesome Movie", 9.0));
+        assertNotEquals(etag, ETags.ofReview(1L, "Awesome Movie!", 9.0));
+        assertNotEquals(etag, ETags.ofReview(1L, "Awesome Movie", 8.0));
+    }
+
+    @Test
+    void combineIgnoresOrder() {
+        assertEquals(ETags.combine(List.of("a", "b")), ETags.combine(List.of("b", "a")));
+        assertNotEquals(ETags.combine(List.of("a")), ETags.combine(List.of("a", "b")));
+    }
+
+    @Test
+    void matchesHandlesListsWeakTagsAndWildcard() {
+        assertTrue(ETags.matches("\"abc\"", "abc"));
+        assertTrue(ETags.matches("\"xyz\", W/\"abc\"", "abc"));
+        assertTrue(ETags.matches("*", "abc"));
+        assertFalse(ETags.matches("\"abd\"", "abc"));
+        assertFalse(ETags.matches(null, "abc"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.reactivespring.util;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GroupCommitWriterTest {
+
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<String> collection = mock(MongoCollection.class);
+
+    private GroupCommitWriter<String> writer;
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    void concurrentWritesShareBatches() {
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.just(InsertManyResult.unacknowledged()));
+        writer = new GroupCommitWriter<>(Mono.just(collection), 4, Duration.ofMillis(50), 2);
+
+        StepVerifier.create(Flux.range(0, 10).flatMap(i -> writer.write("doc" + i)).collectList())
+                .assertNext(written -> assertEquals(10, written.size()))
+                .verifyComplete();
+
+        assertEquals(10, writer.documentCount());
+        assertTrue(writer.batchCount() <= 4, "expected grouped inserts, got " + writer.batchCount());
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxDelay() {
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.just(InsertManyResult.unacknowledged()));
+        writer = new GroupCommitWriter<>(Mono.just(collection), 64, Duration.ofMillis(5), 2);
+
+        StepVerifier.create(writer.write("single"))
+                .expectNext("single")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void onlyRejectedDocumentsFail() {
+        MongoBulkWriteException rejected = new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)),
+                null,
+                new ServerAddress(),
+                Set.of());
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.error(rejected));
+        writer = new GroupCommitWriter<>(Mono.just(collection), 2, Duration.ofSeconds(5), 1);
+
+        StepVerifier.create(Mono.zip(writer.write("first").materialize(), writer.write("second").materialize()))
+                .assertNext(outcomes -> {
+                    assertEquals("first", outcomes.getT1().get());
+                    assertTrue(outcomes.getT2().getThrowable() instanceof MongoBulkWriteException);
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void writeConcernErrorFailsTheWholeBatch() {
+        MongoBulkWriteException notJournaled = new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(),
+                List.of(),
+                new WriteConcernError(100, "UnsatisfiableWriteConcern", "journal failed", new BsonDocument(), Set.of()),
+                new ServerAddress(),
+                Set.of());
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.error(notJournaled));
+        writer = new GroupCommitWriter<>(Mono.just(collection), 2, Duration.ofSeconds(5), 1);
+
+        StepVerifier.create(Mono.zip(writer.write("first").materialize(), writer.write("second").materialize()))
+                .assertNext(outcomes -> {
+                    assertTrue(outcomes.getT1().getThrowable() instanceof MongoBulkWriteException);
+                    assertTrue(outcomes.getT2().getThrowable() instanceof MongoBulkWriteException);
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void closeFlushesWaitingWritesAndRejectsLaterOnes() {
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.just(InsertManyResult.unacknowledged()));
+        writer = new GroupCommitWriter<>(Mono.just(collection), 64, Duration.ofSeconds(30), 1);
+
+        Mono<String> waiting = writer.write("waiting").cache();
+        waiting.subscribe();
+        writer.close();
+
+        StepVerifier.create(waiting)
+                .expectNext("waiting")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(writer.write("late"))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,81 @@
+package com.reactivespring.util;
+
+import com.reactivespring.filter.RequestClass;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriorityRequestSchedulerTest {
+
+    //one slot per class, two queue places, nothing reserved
+    private final PriorityRequestScheduler scheduler = new PriorityRequestScheduler(true, Duration.ofSeconds(5), Map.of(
+            RequestClass.INTERACTIVE, new PriorityRequestScheduler.Quota(1, 2, 0),
+            RequestClass.WRITE, new PriorityRequestScheduler.Quota(1, 2, 0),
+            RequestClass.BULK, new PriorityRequestScheduler.Quota(1, 2, 0)));
+
+    @Test
+    void interactiveWaiterHoldsBackBulk() {
+        List<String> admitted = new ArrayList<>();
+        PriorityRequestScheduler.Permit interactive = scheduler.acquire(RequestClass.INTERACTIVE).block();
+        PriorityRequestScheduler.Permit bulk = scheduler.acquire(RequestClass.BULK).block();
+
+        scheduler.acquire(RequestClass.BULK).subscribe(permit -> admitted.add("bulk"));
+        scheduler.acquire(RequestClass.INTERACTIVE).subscribe(permit -> admitted.add("interactive"));
+
+        //the bulk slot frees first, but is not handed on while an interactive read waits
+        bulk.release();
+        assertEquals(List.of(), admitted);
+
+        interactive.release();
+        assertEquals(List.of("interactive", "bulk"), admitted);
+    }
+
+    @Test
+    void reservedShareAdmitsWritesDuringInteractiveBacklog() {
+        PriorityRequestScheduler reserving = new PriorityRequestScheduler(true, Duration.ofSeconds(5), Map.of(
+                RequestClass.INTERACTIVE, new PriorityRequestScheduler.Quota(1, 4, 0),
+                RequestClass.WRITE, new PriorityRequestScheduler.Quota(2, 4, 1),
+                RequestClass.BULK, new PriorityRequestScheduler.Quota(1, 4, 0)));
+        List<String> admitted = new ArrayList<>();
+        reserving.acquire(RequestClass.INTERACTIVE).block();
+        reserving.acquire(RequestClass.INTERACTIVE).subscribe(permit -> admitted.add("interactive"));
+
+        //within the reserved share while interactive reads wait, beyond it not
+        reserving.acquire(RequestClass.WRITE).subscribe(permit -> admitted.add("write"));
+        reserving.acquire(RequestClass.WRITE).subscribe(permit -> admitted.add("write"));
+        reserving.acquire(RequestClass.BULK).subscribe(permit -> admitted.add("bulk"));
+
+        assertEquals(List.of("write"), admitted);
+        assertEquals(1, reserving.stats().get("write").get("queued"));
+        assertEquals(1, reserving.stats().get("bulk").get("queued"));
+    }
+
+    @Test
+    void fullQueueIsRejected() {
+        scheduler.acquire(RequestClass.WRITE).block();
+        scheduler.acquire(RequestClass.WRITE).subscribe();
+        scheduler.acquire(RequestClass.WRITE).subscribe();
+
+        StepVerifier.create(scheduler.acquire(RequestClass.WRITE))
+                .expectError(RejectedExecutionException.class)
+                .verify();
+        assertEquals(1L, scheduler.stats().get("write").get("rejected"));
+    }
+
+    @Test
+    void cancelledWaiterLeavesQueue() {
+        scheduler.acquire(RequestClass.INTERACTIVE).block();
+
+        scheduler.acquire(RequestClass.INTERACTIVE).subscribe().dispose();
+
+        assertEquals(0, scheduler.stats().get("interactive").get("queued"));
+        assertEquals(1L, scheduler.stats().get("interactive").get("cancelled"));
+    }
+}
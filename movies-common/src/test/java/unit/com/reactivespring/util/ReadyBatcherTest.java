@@ -0,0 +1,44 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+class ReadyBatcherTest {
+
+    @Test
+    void fullBatchesGoOutWithoutWaiting() {
+        StepVerifier.create(ReadyBatcher.batch(Flux.range(1, 5), 2, Duration.ofSeconds(10)))
+                .expectNext(List.of(1, 2), List.of(3, 4), List.of(5))
+                .verifyComplete();
+    }
+
+    @Test
+    void partialBatchWaitsForMaxDelay() {
+        StepVerifier.withVirtualTime(() -> ReadyBatcher.batch(Flux.just(1, 2).concatWith(Flux.never()), 10, Duration.ofMillis(5)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(4))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(List.of(1, 2))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void dueBatchWaitsForDemandInsteadOfOverflowing() {
+        StepVerifier.withVirtualTime(() -> ReadyBatcher.batch(Flux.just(1, 2, 3).concatWith(Flux.never()), 2, Duration.ofMillis(5)), 0)
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNoEvent(Duration.ofSeconds(1))
+                .thenRequest(1)
+                .expectNext(List.of(1, 2))
+                .thenRequest(1)
+                .thenAwait(Duration.ofMillis(5))
+                .expectNext(List.of(3))
+                .thenCancel()
+                .verify();
+    }
+}
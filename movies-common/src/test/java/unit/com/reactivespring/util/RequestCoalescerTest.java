@@ -0,0 +1,61 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> first = coalescer.mono("abc", () -> Mono.just("movie")
+                .doOnSubscribe(subscription -> calls.incrementAndGet())
+                .delayElement(Duration.ofMillis(200)));
+        Mono<String> second = coalescer.mono("abc", () -> Mono.just("other")
+                .doOnSubscribe(subscription -> calls.incrementAndGet()));
+
+        StepVerifier.create(Flux.merge(first, second))
+                .expectNext("movie", "movie")
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+    @Test
+    void keyIsReleasedAfterCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(coalescer.mono("abc", () -> Mono.fromCallable(calls::incrementAndGet).map(String::valueOf)))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void upstreamIsCancelledWhenAllCallersCancel() {
+        AtomicInteger cancellations = new AtomicInteger();
+        Flux<String> shared = coalescer.flux("abc", () -> Flux.<String>never()
+                .doOnCancel(cancellations::incrementAndGet));
+
+        StepVerifier.create(Flux.merge(shared, shared))
+                .thenAwait(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, cancellations.get());
+        assertEquals(0, coalescer.inFlightCount());
+    }
+}
@@ -0,0 +1,88 @@
+package com.reactivespring.codec;
+
+import com.mongodb.MongoClientSettings;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Per-document cost of MovieInfoCodec against the MappingMongoConverter path it replaced, which has the
+//driver build a Document and the converter map it. Both sides start from and end at BSON bytes, as a
+//cursor batch or an insert does. Run with ./gradlew jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieInfoCodecBenchmark {
+
+    private final MovieInfoCodec codec = new MovieInfoCodec();
+    private final Codec<Document> documentCodec = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+    private MappingMongoConverter converter;
+    private MovieInfo movieInfo;
+    private byte[] stored;
+
+    @Setup
+    public void setUp() {
+        this.converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        this.converter.afterPropertiesSet();
+        this.movieInfo = new MovieInfo(new ObjectId().toHexString(), "Batman Begins", 2005,
+                List.of("Christian Bale", "Michael Caine", "Liam Neeson"), LocalDate.parse("2005-06-15"));
+        this.stored = codecEncode();
+    }
+
+    @Benchmark
+    public MovieInfo codecDecode() {
+        return this.codec.decode(reader(), DecoderContext.builder().build());
+    }
+
+    @Benchmark
+    public MovieInfo mappedDecode() {
+        Document document = this.documentCodec.decode(reader(), DecoderContext.builder().build());
+        return this.converter.read(MovieInfo.class, document);
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        this.codec.encode(new BsonBinaryWriter(buffer), this.movieInfo, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] mappedEncode() {
+        Document document = new Document();
+        this.converter.write(this.movieInfo, document);
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        this.documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private BsonBinaryReader reader() {
+        return new BsonBinaryReader(ByteBuffer.wrap(this.stored));
+    }
+}
@@ -0,0 +1,123 @@
+package com.reactivespring.codec;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.util.ETags;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+//Reads and writes MovieInfo straight from/to BSON, without MappingMongoConverter or an intermediate
+//Document. The layout matches what Spring Data writes: ObjectId-shaped ids are stored as ObjectId,
+//LocalDate as a date at the start of the day in the system zone, plus the _class hint. The stored etag
+//is written for conditional reads but never decoded; it is recomputed from the content.
+public class MovieInfoCodec implements Codec<MovieInfo> {
+
+    private static final String TYPE_HINT = MovieInfo.class.getName();
+
+    @Override
+    public void encode(BsonWriter writer, MovieInfo movieInfo, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (movieInfo.getMovieInfoId() != null) {
+            writer.writeName("_id");
+            if (ObjectId.isValid(movieInfo.getMovieInfoId())) {
+                writer.writeObjectId(new ObjectId(movieInfo.getMovieInfoId()));
+            } else {
+                writer.writeString(movieInfo.getMovieInfoId());
+            }
+        }
+        if (movieInfo.getName() != null) {
+            writer.writeString("name", movieInfo.getName());
+        }
+        if (movieInfo.getYear() != null) {
+            writer.writeInt32("year", movieInfo.getYear());
+        }
+        if (movieInfo.getCast() != null) {
+            writer.writeStartArray("cast");
+            for (String member : movieInfo.getCast()) {
+                if (member == null) {
+                    writer.writeNull();
+                } else {
+                    writer.writeString(member);
+                }
+            }
+            writer.writeEndArray();
+        }
+        if (movieInfo.getReleaseDate() != null) {
+            writer.writeDateTime("releaseDate", movieInfo.getReleaseDate()
+                    .atStartOfDay(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli());
+        }
+        writer.writeString("etag", ETags.ofMovieInfo(movieInfo.getName(), movieInfo.getYear(), movieInfo.getCast(), movieInfo.getReleaseDate()));
+        writer.writeString("_class", TYPE_HINT);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public MovieInfo decode(BsonReader reader, DecoderContext decoderContext) {
+        MovieInfo movieInfo = new MovieInfo();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (name) {
+                case "_id":
+                    movieInfo.setMovieInfoId(reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                            ? reader.readObjectId().toHexString()
+                            : reader.readString());
+                    break;
+                case "name":
+                    movieInfo.setName(reader.readString());
+                    break;
+                case "year":
+                    movieInfo.setYear(reader.getCurrentBsonType() == BsonType.INT64
+                            ? (int) reader.readInt64()
+                            : reader.readInt32());
+                    break;
+                case "cast":
+                    movieInfo.setCast(readStrings(reader));
+                    break;
+                case "releaseDate":
+                    movieInfo.setReleaseDate(LocalDate.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneId.systemDefault()));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return movieInfo;
+    }
+
+    @Override
+    public Class<MovieInfo> getEncoderClass() {
+        return MovieInfo.class;
+    }
+
+    private static List<String> readStrings(BsonReader reader) {
+        List<String> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                values.add(null);
+            } else {
+                values.add(reader.readString());
+            }
+        }
+        reader.readEndArray();
+        return values;
+    }
+}
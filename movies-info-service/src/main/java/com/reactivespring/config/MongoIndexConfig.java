@@ -0,0 +1,34 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.MovieInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import reactor.core.publisher.Flux;
+
+//Indexes behind the year/release-date range, name and sorted queries of MovieInfoRepository
+@Slf4j
+@Configuration
+public class MongoIndexConfig {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public MongoIndexConfig(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        var indexOperations = this.reactiveMongoTemplate.indexOps(MovieInfo.class);
+        Flux.concat(
+                        indexOperations.ensureIndex(new Index().on("year", Sort.Direction.ASC).on("releaseDate", Sort.Direction.ASC)),
+                        indexOperations.ensureIndex(new Index().on("releaseDate", Sort.Direction.ASC)),
+                        indexOperations.ensureIndex(new Index().on("name", Sort.Direction.ASC)))
+                .subscribe(index -> log.info("Ensured index {}", index),
+                        ex -> log.error("Index creation failed", ex));
+    }
+}
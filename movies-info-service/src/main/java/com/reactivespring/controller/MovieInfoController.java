@@ -1,33 +1,110 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.MovieInfoQuery;
+import com.reactivespring.domain.ProjectedMovieInfo;
+import com.reactivespring.exception.MovieInfoDataException;
+import com.reactivespring.feed.MovieInfoEventFeed;
 import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.util.ETags;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1/movie-info")
 public class MovieInfoController {
 
     private final MovieInfoService movieInfoService;
-    private final Sinks.Many<MovieInfo> movieInfoSink = Sinks.many().replay().all();
+    private final MovieInfoEventFeed movieInfoEventFeed;
+    private static final List<String> PROJECTABLE_FIELDS = List.of("movieInfoId", "name", "year", "cast", "releaseDate");
+    private static final List<String> SORTABLE_FIELDS = List.of("name", "year", "releaseDate");
 
-    public MovieInfoController(MovieInfoService movieInfoService) {
+    public MovieInfoController(MovieInfoService movieInfoService, MovieInfoEventFeed movieInfoEventFeed) {
         this.movieInfoService = movieInfoService;
+        this.movieInfoEventFeed = movieInfoEventFeed;
     }
 
+    //Without name, ranges, sort or limit this stays on the plain list/by-year reads; otherwise every
+    //filter is combined into one query.
     @GetMapping
-    public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year, @RequestParam(value = "name", required = false) String name) {
-        return year == null
-                ? this.movieInfoService.getAllMovieInfos().log()
-                : this.movieInfoService.getMovieInfoByYear(year).log();
+    public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year, @RequestParam(value = "name", required = false) String name,
+                                            @RequestParam(value = "fields", required = false) String fields,
+                                            @RequestParam(value = "fromYear", required = false) Integer fromYear,
+                                            @RequestParam(value = "toYear", required = false) Integer toYear,
+                                            @RequestParam(value = "releasedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                            @RequestParam(value = "releasedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                            @RequestParam(value = "sort", required = false) String sort,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+        List<String> projection = parseFields(fields);
+        if (name == null && fromYear == null && toYear == null && releasedFrom == null && releasedTo == null && sort == null && limit == null) {
+            return project(year == null
+                    ? this.movieInfoService.getAllMovieInfos(projection)
+                    : this.movieInfoService.getMovieInfoByYear(year, projection), projection).log();
+        }
+
+        if (fromYear != null && toYear != null && fromYear > toYear) {
+            throw new MovieInfoDataException("fromYear must not be after toYear");
+        }
+        if (releasedFrom != null && releasedTo != null && releasedFrom.isAfter(releasedTo)) {
+            throw new MovieInfoDataException("releasedFrom must not be after releasedTo");
+        }
+        if (limit != null && limit <= 0) {
+            throw new MovieInfoDataException("Limit must be a positive number");
+        }
+        MovieInfoQuery query = new MovieInfoQuery(name, year, fromYear, toYear, releasedFrom, releasedTo, null, false, limit);
+        if (sort != null) {
+            applySort(query, sort);
+        }
+        return project(this.movieInfoService.getMovieInfos(query, projection), projection).log();
+    }
+
+    private static Flux<MovieInfo> project(Flux<MovieInfo> movieInfos, List<String> projection) {
+        return projection.isEmpty() ? movieInfos : movieInfos.map(ProjectedMovieInfo::new);
+    }
+
+    //sort=year,desc
+    private static void applySort(MovieInfoQuery query, String sort) {
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new MovieInfoDataException("Sort field must be one of " + SORTABLE_FIELDS);
+        }
+        String direction = parts.length > 1 ? parts[1].trim() : "asc";
+        if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+            throw new MovieInfoDataException("Sort direction must be asc or desc");
+        }
+        query.setSortField(field);
+        query.setDescending(direction.equalsIgnoreCase("desc"));
+    }
+
+    //Ranked name and cast search; the last word may be partial, for autocomplete
+    @GetMapping("/search")
+    public Flux<MovieInfo> searchMovieInfos(@RequestParam("q") String query,
+                                            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank()) {
+            throw new MovieInfoDataException("Search query must not be blank");
+        }
+        if (limit <= 0) {
+            throw new MovieInfoDataException("Limit must be a positive number");
+        }
+        return this.movieInfoService.searchMovieInfos(query, limit).log();
     }
 
     @GetMapping("/by")
@@ -38,29 +115,68 @@ public class MovieInfoController {
                 .log();
     }
 
+    //A matching If-None-Match is answered from the stored etag alone. Projected reads are a different
+    //representation and carry no ETag.
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable String id) {
-        return this.movieInfoService.getMovieInfoById(id)
-                .map(movieInfo -> ResponseEntity.ok().body(movieInfo))
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
+    public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable String id, @RequestParam(value = "fields", required = false) String fields,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<String> projection = parseFields(fields);
+        Mono<ResponseEntity<MovieInfo>> fullResponse = Mono.defer(() -> this.movieInfoService.getMovieInfoById(id, projection)
+                .map(movieInfo -> projection.isEmpty()
+                        ? ResponseEntity.ok().eTag(ETags.ofMovieInfo(movieInfo.getName(), movieInfo.getYear(), movieInfo.getCast(), movieInfo.getReleaseDate())).body(movieInfo)
+                        : ResponseEntity.ok().<MovieInfo>body(new ProjectedMovieInfo(movieInfo)))
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build())));
+        if (ifNoneMatch == null || !projection.isEmpty()) {
+            return fullResponse.log();
+        }
+        return this.movieInfoService.getMovieInfoEtag(id)
+                .filter(etag -> ETags.matches(ifNoneMatch, etag))
+                .map(etag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<MovieInfo>build())
+                .switchIfEmpty(fullResponse)
                 .log();
     }
 
+    //fields=name,year
+    private static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return List.of();
+        }
+        List<String> projection = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (!PROJECTABLE_FIELDS.containsAll(projection)) {
+            throw new MovieInfoDataException("Fields must be among " + PROJECTABLE_FIELDS);
+        }
+        return projection;
+    }
+
+    //Each event carries its feed id as SSE id, so a client reconnecting with
+    //Last-Event-ID only receives the events it missed. Deletions go out as "delete" events
+    //whose data only holds the movieInfoId.
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<MovieInfo> getMovieInfoById() {
-        return this.movieInfoSink.asFlux().log();
+    public Flux<ServerSentEvent<MovieInfo>> getMovieInfoById(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                             ServerHttpRequest request) {
+        return this.movieInfoEventFeed.events(lastEventId, "sse " + request.getRemoteAddress())
+                .map(event -> ServerSentEvent.builder(event.getMovieInfo())
+                        .id(event.getEventId())
+                        .event(event.isDeleted() ? "delete" : null)
+                        .build())
+                .log();
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo) {
         return this.movieInfoService.addMovieInfo(movieInfo)
-                .doOnNext(this.movieInfoSink::tryEmitNext);
+                .flatMap(savedMovieInfo -> this.movieInfoEventFeed.publish(savedMovieInfo).thenReturn(savedMovieInfo));
     }
 
     @PutMapping("/{id}")
     public Mono<ResponseEntity<MovieInfo>> updateMovieInfo(@RequestBody MovieInfo updatedMovideInfo, @PathVariable String id) {
         return this.movieInfoService.updateMovieInfo(updatedMovideInfo, id)
+                .flatMap(savedMovieInfo -> this.movieInfoEventFeed.publish(savedMovieInfo).thenReturn(savedMovieInfo))
                 .map(movieInfo -> ResponseEntity.ok().body(movieInfo))
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
                 .log();
@@ -69,6 +185,20 @@ public class MovieInfoController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> deleteMovieInfo(@PathVariable String id) {
-        return this.movieInfoService.deleteMovieInfo(id).log();
+        return this.movieInfoService.deleteMovieInfo(id)
+                .then(this.movieInfoEventFeed.publishDeleted(id))
+                .log();
+    }
+
+    //RSocket request-response, served next to the HTTP API
+    @MessageMapping("movie-info.by-id.{id}")
+    public Mono<MovieInfo> getMovieInfoByIdRSocket(@DestinationVariable String id) {
+        return this.movieInfoService.getMovieInfoById(id);
+    }
+
+    //RSocket request-stream of the same change events as /stream, deletions included
+    @MessageMapping("movie-info.stream")
+    public Flux<MovieInfoEvent> getMovieInfoStreamRSocket() {
+        return this.movieInfoEventFeed.events(null, "rsocket");
     }
 }
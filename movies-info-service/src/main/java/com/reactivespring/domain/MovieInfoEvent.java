@@ -0,0 +1,34 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoEvent {
+
+    @Id
+    private String eventId;
+
+    private MovieInfo movieInfo;
+
+    //a tombstone: movieInfo only carries the id of the deleted document
+    private boolean deleted;
+
+    public static MovieInfoEvent saved(MovieInfo movieInfo) {
+        return new MovieInfoEvent(null, movieInfo, false);
+    }
+
+    public static MovieInfoEvent deleted(String movieInfoId) {
+        MovieInfo movieInfo = new MovieInfo();
+        movieInfo.setMovieInfoId(movieInfoId);
+        return new MovieInfoEvent(null, movieInfo, true);
+    }
+
+    public MovieInfoEvent withEventId(String eventId) {
+        return new MovieInfoEvent(eventId, this.movieInfo, this.deleted);
+    }
+}
@@ -0,0 +1,24 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+//Combined filter, sort and top-N for GET /v1/movie-info; null fields are not applied.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoQuery {
+
+    private String name;
+    private Integer year;
+    private Integer fromYear;
+    private Integer toYear;
+    private LocalDate releasedFrom;
+    private LocalDate releasedTo;
+    private String sortField;
+    private boolean descending;
+    private Integer limit;
+}
@@ -0,0 +1,13 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+//A fields= read. Only the requested fields were loaded, so the rest are left out of the response
+//instead of being written as null; full reads keep every field.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectedMovieInfo extends MovieInfo {
+
+    public ProjectedMovieInfo(MovieInfo movieInfo) {
+        super(movieInfo.getMovieInfoId(), movieInfo.getName(), movieInfo.getYear(), movieInfo.getCast(), movieInfo.getReleaseDate());
+    }
+}
@@ -1,5 +1,6 @@
 package com.reactivespring.exception;
 
+import com.reactivespring.filter.RequestMetricsFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -7,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebExchange;
 
 import java.util.stream.Collectors;
 
@@ -16,7 +18,8 @@ public class GlobalErrorHandle {
     private static final Logger log = LoggerFactory.getLogger(GlobalErrorHandle.class);
 
     @ExceptionHandler(WebExchangeBindException.class)
-    public ResponseEntity<String> handleRequestBodyException(WebExchangeBindException ex) {
+    public ResponseEntity<String> handleRequestBodyException(WebExchangeBindException ex, ServerWebExchange exchange) {
+        exchange.getAttributes().put(RequestMetricsFilter.HANDLED_EXCEPTION_ATTRIBUTE, ex);
         log.error("Exception occurred while processing request: {}", ex.getMessage(), ex);
         String errors = ex.getBindingResult()
                 .getAllErrors()
@@ -27,4 +30,11 @@ public class GlobalErrorHandle {
         log.error("Errors are: {}", errors);
         return ResponseEntity.badRequest().body(errors);
     }
+
+    @ExceptionHandler(MovieInfoDataException.class)
+    public ResponseEntity<String> handleMovieInfoDataException(MovieInfoDataException ex, ServerWebExchange exchange) {
+        exchange.getAttributes().put(RequestMetricsFilter.HANDLED_EXCEPTION_ATTRIBUTE, ex);
+        log.error("Exception occurred while processing request: {}", ex.getMessage());
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
 }
@@ -0,0 +1,201 @@
+package com.reactivespring.feed;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.metrics.StreamStats;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+//Change events behind /stream. In "local" mode they live in an in-process replay sink, so a subscriber only
+//sees writes made on the same instance. In "capped" mode every write is appended to a capped collection and
+//each subscriber follows it with a tailable await cursor, so all replicas serve the same events.
+@Slf4j
+@Component
+public class MovieInfoEventFeed {
+
+    static final String COLLECTION = "movieInfoEvents";
+    private static final int RESUME_CLOCK_SKEW_SECONDS = 60;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final boolean capped;
+    private final long cappedSizeBytes;
+    private final long cappedMaxDocuments;
+    private final Duration reconnectDelay;
+    private final Sinks.Many<Tuple2<Long, MovieInfoEvent>> localSink = Sinks.many().replay().all();
+    private final StreamStats<MovieInfo> streamStats = new StreamStats<>("movieInfo", true, MovieInfoEventFeed::estimateSize);
+    //Replay positions restart at 0 with the process, so local ids carry this boot's epoch
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private long nextSequence;
+    private final AtomicBoolean collectionReady = new AtomicBoolean();
+
+    public MovieInfoEventFeed(ReactiveMongoTemplate reactiveMongoTemplate,
+                              @Value("${eventFeed.mode:local}") String mode,
+                              @Value("${eventFeed.cappedSizeBytes:16777216}") long cappedSizeBytes,
+                              @Value("${eventFeed.cappedMaxDocuments:10000}") long cappedMaxDocuments,
+                              @Value("${eventFeed.reconnectDelay:1s}") Duration reconnectDelay) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.capped = "capped".equalsIgnoreCase(mode);
+        this.cappedSizeBytes = cappedSizeBytes;
+        this.cappedMaxDocuments = cappedMaxDocuments;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    public Mono<Void> publish(MovieInfo movieInfo) {
+        return publish(MovieInfoEvent.saved(movieInfo));
+    }
+
+    public Mono<Void> publishDeleted(String movieInfoId) {
+        return publish(MovieInfoEvent.deleted(movieInfoId));
+    }
+
+    //The write being announced has already happened, so a failed insert is logged and swallowed rather
+    //than turning a successful write into an error response
+    private Mono<Void> publish(MovieInfoEvent event) {
+        if (!this.capped) {
+            emit(event);
+            return Mono.empty();
+        }
+        return ensureCollection()
+                .then(this.reactiveMongoTemplate.insert(event, COLLECTION))
+                .then()
+                .onErrorResume(ex -> {
+                    log.error("MovieInfo event for {} was not published", event.getMovieInfo().getMovieInfoId(), ex);
+                    return Mono.empty();
+                });
+    }
+
+    //Emits are serialized, so sequences follow replay order and the sink never sees concurrent
+    //emitters; any failed EmitResult is counted rather than dropped silently.
+    private void emit(MovieInfoEvent event) {
+        synchronized (this.localSink) {
+            long sequence = this.nextSequence;
+            Sinks.EmitResult result = this.localSink.tryEmitNext(Tuples.of(sequence, event.withEventId(this.epoch + "-" + sequence)));
+            this.streamStats.recordEmit(result, sequence, event.getMovieInfo());
+            if (result.isSuccess()) {
+                this.nextSequence++;
+            } else {
+                log.warn("MovieInfo event for {} was not emitted: {}", event.getMovieInfo().getMovieInfoId(), result);
+            }
+        }
+    }
+
+    public StreamStats<MovieInfo> getStreamStats() {
+        return this.streamStats;
+    }
+
+    //Saves and deletions, each with its SSE id. The id is "<epoch>-<replay position>" in local mode and the
+    //event's ObjectId in capped mode; either way it is opaque to clients and only echoed back as Last-Event-ID.
+    //An id from an earlier boot replays from the start, since its position means nothing to this sink.
+    public Flux<MovieInfoEvent> events(String lastEventId, String subscriber) {
+        if (!this.capped) {
+            long nextEventIndex = nextEventIndex(lastEventId);
+            return this.streamStats.track(this.localSink.asFlux().skip(nextEventIndex), subscriber, nextEventIndex - 1, Tuple2::getT1)
+                    .map(Tuple2::getT2);
+        }
+        return this.streamStats.track(cappedEvents(lastEventId), subscriber, StreamStats.NO_SEQUENCE, event -> StreamStats.NO_SEQUENCE);
+    }
+
+    private Flux<MovieInfoEvent> cappedEvents(String lastEventId) {
+        return Flux.defer(() -> {
+            AtomicReference<String> lastSeen = new AtomicReference<>(lastEventId);
+            //a tailable cursor on an empty collection, or one that fell off the end, completes; pick up after the last event
+            return Flux.defer(() -> tail(lastSeen.get()))
+                    .doOnNext(event -> lastSeen.set(event.getEventId()))
+                    .repeatWhen(completed -> completed.delayElements(this.reconnectDelay))
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, this.reconnectDelay)
+                            .maxBackoff(this.reconnectDelay.multipliedBy(10))
+                            .doBeforeRetry(signal -> log.warn("Event feed cursor failed, reconnecting", signal.failure())));
+        });
+    }
+
+    //A capped collection keeps insertion order, but ObjectIds minted by different instances do not follow it,
+    //so the resume point is found by position: the cursor starts at the oldest event and skips up to and
+    //including the last one seen. If that event has already rolled out of the collection, what is left
+    //is replayed. Should it roll out while being skipped to, the first event stamped clearly later than
+    //it (allowing for clock skew between instances) ends the skipping instead.
+    private Flux<MovieInfoEvent> tail(String afterEventId) {
+        Flux<MovieInfoEvent> all = ensureCollection()
+                .thenMany(this.reactiveMongoTemplate.tail(new Query(), MovieInfoEvent.class, COLLECTION));
+        if (afterEventId == null || !ObjectId.isValid(afterEventId)) {
+            return all;
+        }
+        ObjectId after = new ObjectId(afterEventId);
+        return this.reactiveMongoTemplate.exists(Query.query(Criteria.where("_id").is(after)), COLLECTION)
+                .flatMapMany(found -> found ? all.filter(insertedAfter(after)) : all);
+    }
+
+    private static Predicate<MovieInfoEvent> insertedAfter(ObjectId after) {
+        AtomicBoolean passed = new AtomicBoolean();
+        return event -> {
+            if (passed.get()) {
+                return true;
+            }
+            ObjectId id = new ObjectId(event.getEventId());
+            if (id.equals(after)) {
+                passed.set(true);
+                return false;
+            }
+            if (id.getTimestamp() - after.getTimestamp() > RESUME_CLOCK_SKEW_SECONDS) {
+                passed.set(true);
+                return true;
+            }
+            return false;
+        };
+    }
+
+    private Mono<Void> ensureCollection() {
+        if (this.collectionReady.get()) {
+            return Mono.empty();
+        }
+        CollectionOptions options = CollectionOptions.empty()
+                .capped()
+                .size(this.cappedSizeBytes)
+                .maxDocuments(this.cappedMaxDocuments);
+        return this.reactiveMongoTemplate.collectionExists(COLLECTION)
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : this.reactiveMongoTemplate.createCollection(COLLECTION, options).then())
+                //another instance may have created it in the meantime
+                .onErrorResume(ex -> this.reactiveMongoTemplate.collectionExists(COLLECTION)
+                        .flatMap(exists -> exists ? Mono.<Void>empty() : Mono.error(ex)))
+                .doOnSuccess(ignored -> this.collectionReady.set(true));
+    }
+
+    //Rough heap footprint of a retained event, for the replay buffer estimate
+    private static long estimateSize(MovieInfo movieInfo) {
+        long size = 96 + StreamStats.stringBytes(movieInfo.getMovieInfoId()) + StreamStats.stringBytes(movieInfo.getName());
+        if (movieInfo.getCast() != null) {
+            size += 40 + movieInfo.getCast().stream().mapToLong(member -> 8 + StreamStats.stringBytes(member)).sum();
+        }
+        return size;
+    }
+
+    private long nextEventIndex(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(this.epoch + "-")) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(this.epoch.length() + 1)) + 1;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.util.ETags;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//Stores the content hash next to every saved MovieInfo, so a conditional GET can compare it
+//through a projection instead of loading the whole document.
+@Component
+public class MovieInfoEtagCallback implements ReactiveBeforeSaveCallback<MovieInfo> {
+
+    @Override
+    public Publisher<MovieInfo> onBeforeSave(MovieInfo movieInfo, Document document, String collection) {
+        document.put("etag", ETags.ofMovieInfo(movieInfo.getName(), movieInfo.getYear(), movieInfo.getCast(), movieInfo.getReleaseDate()));
+        return Mono.just(movieInfo);
+    }
+}
@@ -0,0 +1,34 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//Reads decoded by MovieInfoCodec directly from the driver, bypassing MappingMongoConverter.
+public interface MovieInfoRepositoryCustom {
+
+    Mono<MovieInfo> findMovieInfoById(String id);
+
+    Mono<MovieInfo> findMovieInfoById(String id, List<String> fields);
+
+    Flux<MovieInfo> findAllMovieInfos();
+
+    Flux<MovieInfo> findAllMovieInfos(List<String> fields);
+
+    Flux<MovieInfo> findMovieInfosByYear(Integer year);
+
+    //Filters, sort and limit all run in Mongo as a single find
+    Flux<MovieInfo> findMovieInfos(MovieInfoQuery query, List<String> fields);
+
+    //Insert through the group-commit writer; completes once the batch holding it is acknowledged
+    Mono<MovieInfo> insertGrouped(MovieInfo movieInfo);
+
+    //Only the stored etag; empty when the document is missing or was written without one
+    Mono<String> findMovieInfoEtag(String id);
+
+    //fields are MovieInfo property names; an empty list reads the whole document
+    Flux<MovieInfo> findMovieInfosByYear(Integer year, List<String> fields);
+}
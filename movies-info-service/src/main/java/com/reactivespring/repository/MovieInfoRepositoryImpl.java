@@ -0,0 +1,182 @@
+package com.reactivespring.repository;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoQuery;
+import com.reactivespring.util.GroupCommitWriter;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MovieInfoRepositoryImpl implements MovieInfoRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int findAllBatchSize;
+    private final int findAllLimitRate;
+    private final int findByYearBatchSize;
+    private final int findByYearLimitRate;
+    private final GroupCommitWriter<MovieInfo> groupCommitWriter;
+
+    public MovieInfoRepositoryImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                   @Value("${mongoCursor.findAll.batchSize:500}") int findAllBatchSize,
+                                   @Value("${mongoCursor.findAll.limitRate:256}") int findAllLimitRate,
+                                   @Value("${mongoCursor.findByYear.batchSize:100}") int findByYearBatchSize,
+                                   @Value("${mongoCursor.findByYear.limitRate:64}") int findByYearLimitRate,
+                                   @Value("${groupCommit.maxBatchSize:64}") int groupCommitMaxBatchSize,
+                                   @Value("${groupCommit.maxDelay:500us}") Duration groupCommitMaxDelay,
+                                   @Value("${groupCommit.maxInFlight:4}") int groupCommitMaxInFlight,
+                                   @Value("${groupCommit.journal:true}") boolean groupCommitJournal) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.findAllBatchSize = findAllBatchSize;
+        this.findAllLimitRate = findAllLimitRate;
+        this.findByYearBatchSize = findByYearBatchSize;
+        this.findByYearLimitRate = findByYearLimitRate;
+        this.groupCommitWriter = new GroupCommitWriter<>(
+                collection().map(collection -> groupCommitJournal ? collection.withWriteConcern(WriteConcern.JOURNALED) : collection),
+                groupCommitMaxBatchSize, groupCommitMaxDelay, groupCommitMaxInFlight);
+    }
+
+    @PreDestroy
+    public void close() {
+        this.groupCommitWriter.close();
+    }
+
+    @Override
+    public Mono<MovieInfo> insertGrouped(MovieInfo movieInfo) {
+        return Mono.defer(() -> {
+            if (movieInfo.getMovieInfoId() == null) {
+                movieInfo.setMovieInfoId(new ObjectId().toHexString());
+            }
+            return this.groupCommitWriter.write(movieInfo);
+        });
+    }
+
+    @Override
+    public Mono<MovieInfo> findMovieInfoById(String id) {
+        return findMovieInfoById(id, List.of());
+    }
+
+    @Override
+    public Mono<MovieInfo> findMovieInfoById(String id, List<String> fields) {
+        Object documentId = ObjectId.isValid(id) ? new ObjectId(id) : id;
+        return collection()
+                .flatMap(collection -> Mono.from(collection.find(Filters.eq("_id", documentId))
+                        .projection(projection(fields))
+                        .first()));
+    }
+
+    @Override
+    public Flux<MovieInfo> findAllMovieInfos() {
+        return findAllMovieInfos(List.of());
+    }
+
+    @Override
+    public Flux<MovieInfo> findAllMovieInfos(List<String> fields) {
+        return collection()
+                .flatMapMany(collection -> collection.find()
+                        .projection(projection(fields))
+                        .batchSize(this.findAllBatchSize))
+                .limitRate(this.findAllLimitRate);
+    }
+
+    @Override
+    public Flux<MovieInfo> findMovieInfosByYear(Integer year) {
+        return findMovieInfosByYear(year, List.of());
+    }
+
+    @Override
+    public Flux<MovieInfo> findMovieInfosByYear(Integer year, List<String> fields) {
+        return collection()
+                .flatMapMany(collection -> collection.find(Filters.eq("year", year))
+                        .projection(projection(fields))
+                        .batchSize(this.findByYearBatchSize))
+                .limitRate(this.findByYearLimitRate);
+    }
+
+    @Override
+    public Flux<MovieInfo> findMovieInfos(MovieInfoQuery query, List<String> fields) {
+        List<Bson> filters = new ArrayList<>();
+        if (query.getName() != null) {
+            filters.add(Filters.eq("name", query.getName()));
+        }
+        if (query.getYear() != null) {
+            filters.add(Filters.eq("year", query.getYear()));
+        }
+        if (query.getFromYear() != null) {
+            filters.add(Filters.gte("year", query.getFromYear()));
+        }
+        if (query.getToYear() != null) {
+            filters.add(Filters.lte("year", query.getToYear()));
+        }
+        if (query.getReleasedFrom() != null) {
+            filters.add(Filters.gte("releaseDate", startOfDay(query.getReleasedFrom())));
+        }
+        if (query.getReleasedTo() != null) {
+            filters.add(Filters.lte("releaseDate", startOfDay(query.getReleasedTo())));
+        }
+        Bson filter = filters.isEmpty() ? new Document() : Filters.and(filters);
+        Bson sort = query.getSortField() == null
+                ? null
+                : query.isDescending() ? Sorts.descending(query.getSortField()) : Sorts.ascending(query.getSortField());
+        int limit = query.getLimit() == null ? 0 : query.getLimit();
+        return collection()
+                .flatMapMany(collection -> collection.find(filter)
+                        .projection(projection(fields))
+                        .sort(sort)
+                        .limit(limit)
+                        .batchSize(limit > 0 ? Math.min(limit, this.findAllBatchSize) : this.findAllBatchSize))
+                .limitRate(this.findAllLimitRate);
+    }
+
+    //dates are stored as the start of the day in the system zone, the same way Spring maps LocalDate
+    private static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Override
+    public Mono<String> findMovieInfoEtag(String id) {
+        Object documentId = ObjectId.isValid(id) ? new ObjectId(id) : id;
+        return this.reactiveMongoTemplate
+                .getCollection(this.reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                .flatMap(collection -> Mono.from(collection.find(Filters.eq("_id", documentId))
+                        .projection(Projections.fields(Projections.include("etag"), Projections.excludeId()))
+                        .first()))
+                .flatMap(document -> Mono.justOrEmpty(document.getString("etag")));
+    }
+
+    //null means the whole document; _id is only returned when movieInfoId was asked for
+    private static Bson projection(List<String> fields) {
+        if (fields.isEmpty()) {
+            return null;
+        }
+        List<String> included = fields.stream()
+                .map(field -> "movieInfoId".equals(field) ? "_id" : field)
+                .collect(Collectors.toList());
+        return included.contains("_id")
+                ? Projections.include(included)
+                : Projections.fields(Projections.include(included), Projections.excludeId());
+    }
+
+    private Mono<MongoCollection<MovieInfo>> collection() {
+        return this.reactiveMongoTemplate
+                .getCollection(this.reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                .map(collection -> collection.withDocumentClass(MovieInfo.class));
+    }
+}
@@ -0,0 +1,171 @@
+package com.reactivespring.search;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//In-process inverted index over name and cast tokens. Postings are kept in a sorted map, so every query
+//term is matched as a prefix (autocomplete) and exact term matches rank higher. It is built from Mongo once
+//the application is ready and then kept current by the service on add, update and delete.
+@Slf4j
+@Component
+public class MovieInfoSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CAST_WEIGHT = 2;
+    private static final int EXACT_BOOST = 2;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final MovieInfoRepository movieInfoRepository;
+    private final boolean enabled;
+    private final ConcurrentNavigableMap<String, Map<String, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, MovieInfo> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> documentTokens = new ConcurrentHashMap<>();
+    //ids deleted while the startup scan runs, so a scan that read them before the delete does not restore them
+    private final Set<String> removedDuringBuild = new HashSet<>();
+    private boolean building;
+
+    public MovieInfoSearchIndex(MovieInfoRepository movieInfoRepository,
+                                @Value("${searchIndex.enabled:true}") boolean enabled) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!this.enabled) {
+            return;
+        }
+        startBuild();
+        this.movieInfoRepository.findAllMovieInfos()
+                .doOnNext(this::indexIfAbsent)
+                .count()
+                .doFinally(signal -> finishBuild())
+                .subscribe(count -> log.info("Search index built with {} movie infos", count),
+                        ex -> log.error("Search index build failed", ex));
+    }
+
+    public synchronized void index(MovieInfo movieInfo) {
+        if (!this.enabled || movieInfo.getMovieInfoId() == null) {
+            return;
+        }
+        unindex(movieInfo.getMovieInfoId());
+        this.removedDuringBuild.remove(movieInfo.getMovieInfoId());
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(movieInfo.getName()).forEach(token -> weights.merge(token, NAME_WEIGHT, Integer::sum));
+        if (movieInfo.getCast() != null) {
+            movieInfo.getCast().stream()
+                    .flatMap(member -> tokenize(member).stream())
+                    .distinct()
+                    .forEach(token -> weights.merge(token, CAST_WEIGHT, Integer::sum));
+        }
+        weights.forEach((token, weight) -> this.postings
+                .computeIfAbsent(token, ignored -> new ConcurrentHashMap<>())
+                .put(movieInfo.getMovieInfoId(), weight));
+        this.documentTokens.put(movieInfo.getMovieInfoId(), weights.keySet());
+        this.documents.put(movieInfo.getMovieInfoId(), movieInfo);
+    }
+
+    synchronized void startBuild() {
+        this.building = true;
+    }
+
+    synchronized void finishBuild() {
+        this.building = false;
+        this.removedDuringBuild.clear();
+    }
+
+    //the startup scan must not overwrite a document written, or bring back one deleted, while it was running
+    synchronized void indexIfAbsent(MovieInfo movieInfo) {
+        if (!this.documents.containsKey(movieInfo.getMovieInfoId()) && !this.removedDuringBuild.contains(movieInfo.getMovieInfoId())) {
+            index(movieInfo);
+        }
+    }
+
+    public synchronized void remove(String movieInfoId) {
+        if (this.building) {
+            this.removedDuringBuild.add(movieInfoId);
+        }
+        unindex(movieInfoId);
+    }
+
+    private void unindex(String movieInfoId) {
+        Set<String> tokens = this.documentTokens.remove(movieInfoId);
+        this.documents.remove(movieInfoId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            this.postings.computeIfPresent(token, (key, ids) -> {
+                ids.remove(movieInfoId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    //Every query term has to match some token of the document, as a prefix or exactly.
+    public List<MovieInfo> search(String query, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().collect(Collectors.toList());
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> scores = null;
+        for (String term : terms) {
+            Map<String, Integer> termScores = new HashMap<>();
+            this.postings.subMap(term, true, term + Character.MAX_VALUE, true)
+                    .forEach((token, ids) -> {
+                        int boost = token.equals(term) ? EXACT_BOOST : 1;
+                        ids.forEach((id, weight) -> termScores.merge(id, weight * boost, Math::max));
+                    });
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .map(entry -> this.documents.get(entry.getKey()))
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return this.documents.size();
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.splitAsStream(folded.toLowerCase(Locale.ROOT))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
@@ -1,32 +1,61 @@
 package com.reactivespring.service;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoQuery;
 import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.search.MovieInfoSearchIndex;
+import com.reactivespring.util.RequestCoalescer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Service
 public class MovieInfoService {
 
     private final MovieInfoRepository movieInfoRepository;
+    private final MovieInfoSearchIndex movieInfoSearchIndex;
+    private final boolean groupCommitEnabled;
+    private final RequestCoalescer<String, MovieInfo> findByIdCoalescer = new RequestCoalescer<>();
 
-    public MovieInfoService(MovieInfoRepository movieInfoRepository) {
+    public MovieInfoService(MovieInfoRepository movieInfoRepository, MovieInfoSearchIndex movieInfoSearchIndex,
+                            @Value("${groupCommit.enabled:false}") boolean groupCommitEnabled) {
         this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoSearchIndex = movieInfoSearchIndex;
+        this.groupCommitEnabled = groupCommitEnabled;
     }
 
     public Flux<MovieInfo> getAllMovieInfos() {
-        return this.movieInfoRepository.findAll();
+        return getAllMovieInfos(List.of());
+    }
+
+    public Flux<MovieInfo> getAllMovieInfos(List<String> fields) {
+        return this.movieInfoRepository.findAllMovieInfos(fields);
     }
 
     public Mono<MovieInfo> getMovieInfoById(String id) {
-        return this.movieInfoRepository.findById(id);
+        return getMovieInfoById(id, List.of());
+    }
+
+    public Mono<MovieInfo> getMovieInfoById(String id, List<String> fields) {
+        String key = fields.isEmpty() ? id : id + "|" + String.join(",", fields);
+        return this.findByIdCoalescer.mono(key, () -> this.movieInfoRepository.findMovieInfoById(id, fields));
+    }
+
+    public Mono<String> getMovieInfoEtag(String id) {
+        return this.movieInfoRepository.findMovieInfoEtag(id);
     }
 
     @Transactional
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
-        return this.movieInfoRepository.save(movieInfo);
+        //only new documents are grouped; a client-chosen id keeps save's upsert semantics
+        Mono<MovieInfo> saved = this.groupCommitEnabled && movieInfo.getMovieInfoId() == null
+                ? this.movieInfoRepository.insertGrouped(movieInfo)
+                : this.movieInfoRepository.save(movieInfo);
+        return saved.doOnNext(this.movieInfoSearchIndex::index);
     }
 
     @Transactional
@@ -38,16 +67,30 @@ public class MovieInfoService {
                     movieInfo.setYear(updatedMovieInfo.getYear());
                     movieInfo.setReleaseDate(updatedMovieInfo.getReleaseDate());
                     return movieInfoRepository.save(movieInfo);
-                });
+                })
+                .doOnNext(this.movieInfoSearchIndex::index);
     }
 
     @Transactional
     public Mono<Void> deleteMovieInfo(String id) {
-        return this.movieInfoRepository.deleteById(id);
+        return this.movieInfoRepository.deleteById(id)
+                .doOnSuccess(ignored -> this.movieInfoSearchIndex.remove(id));
     }
 
     public Flux<MovieInfo> getMovieInfoByYear(Integer year) {
-        return this.movieInfoRepository.findByYear(year);
+        return getMovieInfoByYear(year, List.of());
+    }
+
+    public Flux<MovieInfo> getMovieInfoByYear(Integer year, List<String> fields) {
+        return this.movieInfoRepository.findMovieInfosByYear(year, fields);
+    }
+
+    public Flux<MovieInfo> getMovieInfos(MovieInfoQuery query, List<String> fields) {
+        return this.movieInfoRepository.findMovieInfos(query, fields);
+    }
+
+    public Flux<MovieInfo> searchMovieInfos(String query, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(this.movieInfoSearchIndex.search(query, limit)));
     }
 
     public Mono<MovieInfo> getMovieInfoByName(String name) {
@@ -0,0 +1,71 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"eventFeed.mode=capped", "eventFeed.reconnectDelay=100ms"})
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+class MovieInfoCappedFeedIntegrationTest {
+
+    private static final String V_1_MOVIE_INFO = "/v1/movie-info";
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void streamFollowsCappedCollection() {
+        Flux<ServerSentEvent<MovieInfo>> events = webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "/stream")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieInfo>>() {
+                })
+                .getResponseBody();
+
+        MovieInfo movieInfo = new MovieInfo(null, "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15"));
+        webTestClient
+                .post()
+                .uri(V_1_MOVIE_INFO)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        StepVerifier.create(events)
+                .assertNext(event -> {
+                    assertNotNull(event.id());
+                    assertEquals("Batman Begins", event.data().getName());
+                })
+                .thenCancel()
+                .verify();
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -301,4 +302,129 @@ class MovieInfoControllerIntegrationTest {
                     assertNull(responseBody);
                 });
     }
-}
\ No newline at end of file
+
+    @Test
+    void cursorStatsCountFindRoundTrips() {
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient
+                .get()
+                .uri("/internal/cursors")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.find.roundTrips").value(roundTrips -> assertTrue(((Number) roundTrips).longValue() >= 1))
+                .jsonPath("$.find.bytes").value(bytes -> assertTrue(((Number) bytes).longValue() > 0));
+    }
+
+    @Test
+    void getMovieInfoByIdWithFields() {
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "/{id}?fields=name,year", "abc")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$.year").isEqualTo(2012)
+                .jsonPath("$.movieInfoId").doesNotExist()
+                .jsonPath("$.cast").doesNotExist();
+    }
+
+    @Test
+    void getMovieInfoByIdNotModified() {
+        String etag = webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "/{id}", "abc")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .exists(HttpHeaders.ETAG)
+                .returnResult(MovieInfo.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "/{id}", "abc")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    void searchMovieInfos() {
+        MovieInfo movieInfo = new MovieInfo(null, "Interstellar", 2014, List.of("Matthew McConaughey", "Anne Hathaway"), LocalDate.parse("2014-11-07"));
+        webTestClient
+                .post()
+                .uri(V_1_MOVIE_INFO)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "/search?q=hatha")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(MovieInfo.class)
+                .value(movieInfos -> assertEquals("Interstellar", movieInfos.get(0).getName()));
+    }
+
+    @Test
+    void getMovieInfosByYearRangeSortedAndLimited() {
+        URI uri = UriComponentsBuilder
+                .fromUriString(V_1_MOVIE_INFO)
+                .queryParam("fromYear", 2006)
+                .queryParam("toYear", 2012)
+                .queryParam("sort", "year,desc")
+                .queryParam("limit", 1)
+                .buildAndExpand().toUri();
+
+        webTestClient
+                .get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(MovieInfo.class)
+                .value(movieInfos -> {
+                    assertEquals(1, movieInfos.size());
+                    assertEquals("Dark Knight Rises", movieInfos.get(0).getName());
+                });
+    }
+
+    @Test
+    void getMovieInfosByNameAndReleaseDate() {
+        URI uri = UriComponentsBuilder
+                .fromUriString(V_1_MOVIE_INFO)
+                .queryParam("name", "The Dark Knight")
+                .queryParam("releasedFrom", "2008-01-01")
+                .queryParam("releasedTo", "2008-12-31")
+                .buildAndExpand().toUri();
+
+        webTestClient
+                .get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.config.MongoCodecConfig;
+import com.reactivespring.domain.MovieInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoCodecConfig.class)
+class MovieInfoCodecIntegrationTest {
+
+    @Autowired
+    MovieInfoRepository movieInfoRepository;
+
+    @BeforeEach
+    void setUp() {
+        List<MovieInfo> moviesInfo = List.of(
+                new MovieInfo(null, "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "The Dark Knight", 2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+                new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+
+        movieInfoRepository.saveAll(moviesInfo).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void findMovieInfoById() {
+        StepVerifier.create(movieInfoRepository.findMovieInfoById("abc"))
+                .expectNext(movieInfoRepository.findById("abc").block())
+                .verifyComplete();
+    }
+
+    @Test
+    void findMovieInfoByObjectId() {
+        MovieInfo saved = movieInfoRepository.findByYear(2005).blockFirst();
+
+        StepVerifier.create(movieInfoRepository.findMovieInfoById(saved.getMovieInfoId()))
+                .expectNext(saved)
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllMovieInfos() {
+        List<MovieInfo> mapped = movieInfoRepository.findAll().collectList().block();
+
+        StepVerifier.create(movieInfoRepository.findAllMovieInfos().collectList())
+                .assertNext(decoded -> assertEquals(mapped, decoded))
+                .verifyComplete();
+    }
+
+    @Test
+    void findMovieInfosByYear() {
+        StepVerifier.create(movieInfoRepository.findMovieInfosByYear(2008))
+                .assertNext(movieInfo -> assertEquals("The Dark Knight", movieInfo.getName()))
+                .verifyComplete();
+    }
+
+    @Test
+    void codecReadsMatchMappedReadsInBulk() {
+        List<MovieInfo> bulk = IntStream.range(0, 2000)
+                .mapToObj(i -> new MovieInfo(null, "Movie " + i, 2000 + (i % 20),
+                        List.of("Actor " + i, "Actor " + (i + 1)), LocalDate.of(2000, 1, 1).plusDays(i)))
+                .collect(Collectors.toList());
+        movieInfoRepository.saveAll(bulk).blockLast();
+
+        Map<String, MovieInfo> mapped = movieInfoRepository.findAll()
+                .collectMap(MovieInfo::getMovieInfoId)
+                .block();
+
+        StepVerifier.create(movieInfoRepository.findAllMovieInfos().collectMap(MovieInfo::getMovieInfoId))
+                .assertNext(decoded -> assertEquals(mapped, decoded))
+                .verifyComplete();
+    }
+}
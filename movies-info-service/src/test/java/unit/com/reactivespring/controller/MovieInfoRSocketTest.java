@@ -0,0 +1,99 @@
+package com.reactivespring.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.feed.MovieInfoEventFeed;
+import com.reactivespring.service.MovieInfoService;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//The @MessageMapping routes of MovieInfoController, served over a real RSocket connection
+class MovieInfoRSocketTest {
+
+    private final MovieInfoService movieInfoService = mock(MovieInfoService.class);
+    private final MovieInfoEventFeed movieInfoEventFeed = mock(MovieInfoEventFeed.class);
+
+    private CloseableChannel server;
+    private RSocketRequester requester;
+
+    @BeforeEach
+    void startServer() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2JsonEncoder(objectMapper)))
+                .decoders(decoders -> decoders.add(new Jackson2JsonDecoder(objectMapper)))
+                .build();
+        RSocketMessageHandler messageHandler = new RSocketMessageHandler();
+        messageHandler.setRSocketStrategies(strategies);
+        messageHandler.setHandlers(List.of(new MovieInfoController(this.movieInfoService, this.movieInfoEventFeed)));
+        messageHandler.afterPropertiesSet();
+
+        this.server = RSocketServer.create(messageHandler.responder())
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+        this.requester = RSocketRequester.builder()
+                .rsocketStrategies(strategies)
+                .dataMimeType(MimeTypeUtils.APPLICATION_JSON)
+                .tcp("localhost", this.server.address().getPort());
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.requester.dispose();
+        this.server.dispose();
+    }
+
+    @Test
+    void movieInfoById() {
+        MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+        when(this.movieInfoService.getMovieInfoById("abc")).thenReturn(Mono.just(movieInfo));
+
+        StepVerifier.create(this.requester.route("movie-info.by-id.{id}", "abc").retrieveMono(MovieInfo.class))
+                .expectNext(movieInfo)
+                .verifyComplete();
+    }
+
+    @Test
+    void unknownIdCompletesEmpty() {
+        when(this.movieInfoService.getMovieInfoById("def")).thenReturn(Mono.empty());
+
+        StepVerifier.create(this.requester.route("movie-info.by-id.{id}", "def").retrieveMono(MovieInfo.class))
+                .verifyComplete();
+    }
+
+    @Test
+    void streamCarriesSavesAndDeletions() {
+        MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+        when(this.movieInfoEventFeed.events(isNull(), eq("rsocket"))).thenReturn(Flux.just(
+                MovieInfoEvent.saved(movieInfo).withEventId("e-1"),
+                MovieInfoEvent.deleted("abc").withEventId("e-2")));
+
+        StepVerifier.create(this.requester.route("movie-info.stream").retrieveFlux(MovieInfoEvent.class))
+                .expectNextMatches(event -> !event.isDeleted() && event.getMovieInfo().equals(movieInfo))
+                .expectNextMatches(event -> event.isDeleted() && event.getMovieInfo().getMovieInfoId().equals("abc"))
+                .verifyComplete();
+    }
+}
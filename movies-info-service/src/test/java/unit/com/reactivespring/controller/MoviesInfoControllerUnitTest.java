@@ -1,12 +1,17 @@
 package com.reactivespring.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.feed.MovieInfoEventFeed;
 import com.reactivespring.service.MovieInfoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -15,7 +20,9 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = MovieInfoController.class)
@@ -30,6 +37,9 @@ public class MoviesInfoControllerUnitTest {
     @MockBean
     private MovieInfoService movieInfoService;
 
+    @MockBean
+    private MovieInfoEventFeed movieInfoEventFeed;
+
     @Test
     void getAllMoviesInfo() {
         List<MovieInfo> moviesInfo = List.of(
@@ -37,7 +47,7 @@ public class MoviesInfoControllerUnitTest {
                 new MovieInfo(null, "The Dark Knight", 2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
                 new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
 
-        when(movieInfoService.getAllMovieInfos()).thenReturn(Flux.fromIterable(moviesInfo));
+        when(movieInfoService.getAllMovieInfos(anyList())).thenReturn(Flux.fromIterable(moviesInfo));
 
         webTestClient
                 .get()
@@ -55,7 +65,7 @@ public class MoviesInfoControllerUnitTest {
         String id = "abc";
         MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
 
-        when(movieInfoService.getMovieInfoById(isA(String.class))).thenReturn(Mono.just(movieInfo));
+        when(movieInfoService.getMovieInfoById(isA(String.class), anyList())).thenReturn(Mono.just(movieInfo));
 
 
         webTestClient
@@ -78,6 +88,7 @@ public class MoviesInfoControllerUnitTest {
         MovieInfo movieInfo = new MovieInfo("mockId", "Batman Begins1", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15"));
 
         when(movieInfoService.addMovieInfo(isA(MovieInfo.class))).thenReturn(Mono.just(movieInfo));
+        when(movieInfoEventFeed.publish(isA(MovieInfo.class))).thenReturn(Mono.empty());
 
         webTestClient
                 .post()
@@ -103,6 +114,7 @@ public class MoviesInfoControllerUnitTest {
         MovieInfo updatedMovieInfo = new MovieInfo("abc", "Barbie", 2028, List.of("Ken", "Barbie"), LocalDate.parse("2012-07-20"));
 
         when(movieInfoService.updateMovieInfo(isA(MovieInfo.class), isA(String.class))).thenReturn(Mono.just(updatedMovieInfo));
+        when(movieInfoEventFeed.publish(isA(MovieInfo.class))).thenReturn(Mono.empty());
 
         webTestClient
                 .put()
@@ -129,6 +141,7 @@ public class MoviesInfoControllerUnitTest {
         String id = "abc";
 
         when(movieInfoService.deleteMovieInfo(isA(String.class))).thenReturn(Mono.empty());
+        when(movieInfoEventFeed.publishDeleted(id)).thenReturn(Mono.empty());
 
         webTestClient
                 .delete()
@@ -141,6 +154,8 @@ public class MoviesInfoControllerUnitTest {
                     Void responseBody = response.getResponseBody();
                     assertNull(responseBody);
                 });
+
+        verify(movieInfoEventFeed).publishDeleted(id);
     }
 
     @Test
@@ -162,4 +177,105 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void getAllMovieInfosInvalidFields() {
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "?fields=name,budget")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Fields must be among [movieInfoId, name, year, cast, releaseDate]");
+    }
+
+    @Test
+    void projectedReadLeavesOutUnrequestedFields() {
+        when(movieInfoService.getAllMovieInfos(List.of("name", "year"))).thenReturn(Flux.just(
+                new MovieInfo(null, "Dark Knight Rises", 2012, null, null)));
+
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "?fields=name,year")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$[0].year").isEqualTo(2012)
+                .jsonPath("$[0].cast").doesNotExist()
+                .jsonPath("$[0].releaseDate").doesNotExist();
+    }
+
+    @Test
+    void fullReadKeepsNullFields() {
+        when(movieInfoService.getMovieInfoById(isA(String.class), anyList())).thenReturn(Mono.just(
+                new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale"), null)));
+
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "/{id}", "abc")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.releaseDate").isEmpty()
+                .jsonPath("$.releaseDate").hasJsonPath();
+    }
+
+    @Test
+    void getMovieInfosInvalidYearRange() {
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO + "?fromYear=2012&toYear=2005")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("fromYear must not be after toYear");
+    }
+
+    @Test
+    void wildcardAcceptGetsJson() {
+        when(movieInfoService.getAllMovieInfos(anyList())).thenReturn(Flux.just(
+                new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))));
+
+        webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO)
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getAllMoviesInfoAsCbor() throws Exception {
+        List<MovieInfo> moviesInfo = List.of(
+                new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("def", "The Dark Knight", 2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+
+        when(movieInfoService.getAllMovieInfos(anyList())).thenReturn(Flux.fromIterable(moviesInfo));
+
+        byte[] body = webTestClient
+                .get()
+                .uri(V_1_MOVIE_INFO)
+                .accept(MediaType.parseMediaType("application/cbor"))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.parseMediaType("application/cbor"))
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        assertEquals(moviesInfo, cborMapper.readValue(body, new TypeReference<List<MovieInfo>>() {
+        }));
+    }
 }
@@ -0,0 +1,146 @@
+package com.reactivespring.feed;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieInfoEventFeedTest {
+
+    private static final String OLDEST = "5effffff0000000000000001";
+    private static final String RESUME_FROM = "5f000000ffffffffffffffff";
+    private static final String LATE = "5f0000000000000000000001";
+
+    @Test
+    void resumesAfterLastEventIdOfTheSameBoot() {
+        MovieInfoEventFeed feed = localFeed();
+        feed.publish(movieInfo("1", "Batman Begins")).block();
+        feed.publish(movieInfo("2", "The Dark Knight")).block();
+
+        String firstId = feed.events(null, "test").blockFirst().getEventId();
+
+        StepVerifier.create(feed.events(firstId, "test"))
+                .assertNext(event -> assertEquals("2", event.getMovieInfo().getMovieInfoId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void replaysFromStartForIdOfAPreviousBoot() {
+        MovieInfoEventFeed previousBoot = localFeed();
+        previousBoot.publish(movieInfo("1", "Batman Begins")).block();
+        previousBoot.publish(movieInfo("2", "The Dark Knight")).block();
+        String lastIdBeforeRestart = previousBoot.events(null, "test").take(2).last().block().getEventId();
+
+        MovieInfoEventFeed restarted = localFeed();
+        restarted.publish(movieInfo("3", "Dark Knight Rises")).block();
+
+        StepVerifier.create(restarted.events(lastIdBeforeRestart, "test"))
+                .assertNext(event -> {
+                    assertEquals("3", event.getMovieInfo().getMovieInfoId());
+                    assertNotEquals(lastIdBeforeRestart, event.getEventId());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void malformedLastEventIdReplaysFromStart() {
+        MovieInfoEventFeed feed = localFeed();
+        feed.publish(movieInfo("1", "Batman Begins")).block();
+
+        StepVerifier.create(feed.events("7", "test").map(MovieInfoEvent::getMovieInfo))
+                .assertNext(movieInfo -> assertEquals("1", movieInfo.getMovieInfoId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void deletionIsPublishedAsTombstone() {
+        MovieInfoEventFeed feed = localFeed();
+        feed.publish(movieInfo("1", "Batman Begins")).block();
+        feed.publishDeleted("1").block();
+
+        StepVerifier.create(feed.events(null, "test"))
+                .assertNext(event -> assertFalse(event.isDeleted()))
+                .assertNext(event -> {
+                    assertTrue(event.isDeleted());
+                    assertEquals("1", event.getMovieInfo().getMovieInfoId());
+                    assertNull(event.getMovieInfo().getName());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void cappedResumeFollowsInsertionOrderNotIdOrder() {
+        ReactiveMongoTemplate template = cappedTemplate(true);
+        MovieInfoEventFeed feed = cappedFeed(template);
+
+        //"late" was minted on another instance with a smaller id, but inserted after "resumeFrom"
+        StepVerifier.create(feed.events(RESUME_FROM, "test"))
+                .assertNext(event -> assertEquals(LATE, event.getEventId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void cappedResumeFromRolledOffIdReplaysWhatIsLeft() {
+        MovieInfoEventFeed feed = cappedFeed(cappedTemplate(false));
+
+        StepVerifier.create(feed.events(RESUME_FROM, "test"))
+                .assertNext(event -> assertEquals(OLDEST, event.getEventId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void failedCappedPublishDoesNotFailTheWrite() {
+        ReactiveMongoTemplate template = cappedTemplate(true);
+        when(template.insert(any(MovieInfoEvent.class), eq(MovieInfoEventFeed.COLLECTION))).thenReturn(Mono.error(new IllegalStateException("not primary")));
+
+        StepVerifier.create(cappedFeed(template).publish(movieInfo("1", "Batman Begins")))
+                .verifyComplete();
+    }
+
+    private static ReactiveMongoTemplate cappedTemplate(boolean resumePointPresent) {
+        ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+        when(template.collectionExists(MovieInfoEventFeed.COLLECTION)).thenReturn(Mono.just(true));
+        when(template.exists(any(Query.class), eq(MovieInfoEventFeed.COLLECTION))).thenReturn(Mono.just(resumePointPresent));
+        when(template.tail(any(Query.class), eq(MovieInfoEvent.class), eq(MovieInfoEventFeed.COLLECTION))).thenReturn(Flux.just(
+                new MovieInfoEvent(OLDEST, movieInfo("1", "Batman Begins"), false),
+                new MovieInfoEvent(RESUME_FROM, movieInfo("2", "The Dark Knight"), false),
+                new MovieInfoEvent(LATE, movieInfo("3", "Dark Knight Rises"), false)));
+        return template;
+    }
+
+    private static MovieInfoEventFeed cappedFeed(ReactiveMongoTemplate template) {
+        return new MovieInfoEventFeed(template, "capped", 1024, 10, Duration.ofMillis(100));
+    }
+
+    private static MovieInfoEventFeed localFeed() {
+        return new MovieInfoEventFeed(null, "local", 1024, 10, Duration.ofSeconds(1));
+    }
+
+    private static MovieInfo movieInfo(String id, String name) {
+        return new MovieInfo(id, name, 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.reactivespring.search;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieInfoSearchIndexTest {
+
+    private MovieInfoSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MovieInfoSearchIndex(null, true);
+        index.index(new MovieInfo("1", "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")));
+        index.index(new MovieInfo("2", "The Dark Knight", 2008, List.of("Christian Bale", "Heath Ledger"), LocalDate.parse("2008-07-18")));
+        index.index(new MovieInfo("3", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+    }
+
+    @Test
+    void searchesNameAndCast() {
+        assertEquals(List.of("1"), ids(index.search("batman", 10)));
+        assertEquals(List.of("2"), ids(index.search("ledger", 10)));
+        assertEquals(3, index.search("bale", 10).size());
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        assertEquals(List.of("2", "3"), ids(index.search("dark kni", 10)));
+        assertEquals(List.of("3"), ids(index.search("dark knight ri", 10)));
+    }
+
+    @Test
+    void exactAndNameMatchesRankFirst() {
+        index.index(new MovieInfo("4", "Hardy Boys", 1990, List.of("Someone Else"), null));
+
+        assertEquals(List.of("4", "3"), ids(index.search("hardy", 10)));
+    }
+
+    @Test
+    void foldsCaseAndAccents() {
+        index.index(new MovieInfo("5", "Amélie", 2001, List.of("Audrey Tautou"), null));
+
+        assertEquals(List.of("5"), ids(index.search("AMELIE", 10)));
+    }
+
+    @Test
+    void updateAndRemoveKeepIndexCurrent() {
+        index.index(new MovieInfo("1", "Batman Returns", 1992, List.of("Michael Keaton"), null));
+
+        assertTrue(index.search("begins", 10).isEmpty());
+        assertEquals(List.of("1"), ids(index.search("keaton", 10)));
+
+        index.remove("1");
+
+        assertTrue(index.search("batman", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void startupScanSkipsIdsDeletedWhileItRuns() {
+        MovieInfoRepository repository = mock(MovieInfoRepository.class);
+        Sinks.Many<MovieInfo> scan = Sinks.many().unicast().onBackpressureBuffer();
+        when(repository.findAllMovieInfos()).thenReturn(scan.asFlux());
+        MovieInfoSearchIndex building = new MovieInfoSearchIndex(repository, true);
+
+        building.build();
+        building.remove("4");
+        //read by the scan before the delete
+        scan.tryEmitNext(new MovieInfo("4", "Memento", 2000, List.of("Guy Pearce"), null));
+        scan.tryEmitNext(new MovieInfo("5", "Inception", 2010, List.of("Leonardo DiCaprio"), null));
+        scan.tryEmitComplete();
+
+        assertTrue(building.search("memento", 10).isEmpty());
+        assertEquals(List.of("5"), ids(building.search("inception", 10)));
+
+        //after the scan a re-created id is indexed again
+        building.index(new MovieInfo("4", "Memento", 2000, List.of("Guy Pearce"), null));
+        assertEquals(List.of("4"), ids(building.search("memento", 10)));
+    }
+
+    @Test
+    void limitsResults() {
+        assertEquals(1, index.search("bale", 1).size());
+    }
+
+    private static List<String> ids(List<MovieInfo> movieInfos) {
+        return movieInfos.stream().map(MovieInfo::getMovieInfoId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactivespring.codec;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.util.ETags;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+//Reads and writes Review straight from/to BSON, without MappingMongoConverter or an intermediate
+//Document. The layout matches what Spring Data writes, including ObjectId-shaped ids and the _class hint.
+public class ReviewCodec implements Codec<Review> {
+
+    private static final String TYPE_HINT = Review.class.getName();
+
+    @Override
+    public void encode(BsonWriter writer, Review review, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (review.getReviewId() != null) {
+            writer.writeName("_id");
+            if (ObjectId.isValid(review.getReviewId())) {
+                writer.writeObjectId(new ObjectId(review.getReviewId()));
+            } else {
+                writer.writeString(review.getReviewId());
+            }
+        }
+        if (review.getMovieInfoId() != null) {
+            writer.writeInt64("movieInfoId", review.getMovieInfoId());
+        }
+        if (review.getComment() != null) {
+            writer.writeString("comment", review.getComment());
+        }
+        if (review.getRating() != null) {
+            writer.writeDouble("rating", review.getRating());
+        }
+        writer.writeString("etag", ETags.ofReview(review.getMovieInfoId(), review.getComment(), review.getRating()));
+        writer.writeString("_class", TYPE_HINT);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Review decode(BsonReader reader, DecoderContext decoderContext) {
+        Review review = new Review();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (name) {
+                case "_id":
+                    review.setReviewId(reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                            ? reader.readObjectId().toHexString()
+                            : reader.readString());
+                    break;
+                case "movieInfoId":
+                    review.setMovieInfoId(reader.getCurrentBsonType() == BsonType.INT32
+                            ? (long) reader.readInt32()
+                            : reader.readInt64());
+                    break;
+                case "comment":
+                    review.setComment(reader.readString());
+                    break;
+                case "rating":
+                    review.setRating(readNumber(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return review;
+    }
+
+    @Override
+    public Class<Review> getEncoderClass() {
+        return Review.class;
+    }
+
+    private static double readNumber(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            default:
+                return reader.readDouble();
+        }
+    }
+}
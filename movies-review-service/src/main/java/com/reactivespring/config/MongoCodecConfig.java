@@ -0,0 +1,19 @@
+package com.reactivespring.config;
+
+import com.mongodb.MongoClientSettings;
+import com.reactivespring.codec.ReviewCodec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoCodecConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer domainCodecsCustomizer() {
+        return settings -> settings.codecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new ReviewCodec()),
+                MongoClientSettings.getDefaultCodecRegistry()));
+    }
+}
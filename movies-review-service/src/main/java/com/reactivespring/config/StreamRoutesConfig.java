@@ -0,0 +1,14 @@
+package com.reactivespring.config;
+
+import com.reactivespring.filter.StreamRoutes;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StreamRoutesConfig {
+
+    @Bean
+    public StreamRoutes streamRoutes() {
+        return new StreamRoutes("/v1/review/stream");
+    }
+}
@@ -0,0 +1,92 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.feed.ReviewEventFeed;
+import com.reactivespring.filter.SseKeepAliveFilter;
+import com.reactivespring.metrics.CursorMetrics;
+import com.reactivespring.metrics.PrometheusText;
+import com.reactivespring.metrics.RequestMetrics;
+import com.reactivespring.tracing.Tracer;
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import com.reactivespring.util.PriorityRequestScheduler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal")
+public class InternalController {
+
+    private final CursorMetrics cursorMetrics;
+    private final List<AdaptiveConcurrencyLimiter> concurrencyLimiters;
+    private final PriorityRequestScheduler priorityRequestScheduler;
+    private final RequestMetrics requestMetrics;
+    private final Tracer tracer;
+    private final ReviewEventFeed reviewEventFeed;
+    private final SseKeepAliveFilter sseKeepAliveFilter;
+
+    public InternalController(CursorMetrics cursorMetrics, List<AdaptiveConcurrencyLimiter> concurrencyLimiters,
+                              PriorityRequestScheduler priorityRequestScheduler,
+                              RequestMetrics requestMetrics, Tracer tracer,
+                              ReviewEventFeed reviewEventFeed, SseKeepAliveFilter sseKeepAliveFilter) {
+        this.cursorMetrics = cursorMetrics;
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.priorityRequestScheduler = priorityRequestScheduler;
+        this.requestMetrics = requestMetrics;
+        this.tracer = tracer;
+        this.reviewEventFeed = reviewEventFeed;
+        this.sseKeepAliveFilter = sseKeepAliveFilter;
+    }
+
+    @GetMapping("/cursors")
+    public Map<String, Map<String, Number>> cursors() {
+        return this.cursorMetrics.stats();
+    }
+
+    @GetMapping("/concurrency")
+    public Map<String, Map<String, Number>> concurrency() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        this.concurrencyLimiters.forEach(limiter -> stats.put(limiter.getName(), limiter.stats()));
+        return stats;
+    }
+
+    @GetMapping("/scheduling")
+    public Map<String, Map<String, Number>> scheduling() {
+        return this.priorityRequestScheduler.stats();
+    }
+
+    @GetMapping("/tracing")
+    public Map<String, Number> tracing() {
+        return this.tracer.stats();
+    }
+
+    //Live fan-out of the event stream, down to each subscriber
+    @GetMapping("/streams")
+    public Map<String, Map<String, Object>> streams() {
+        return Map.of(this.reviewEventFeed.getStreamStats().getName(), this.reviewEventFeed.getStreamStats().details());
+    }
+
+    //Heartbeat and idle reclamation counters of the SSE connections
+    @GetMapping("/sse")
+    public Map<String, Number> sse() {
+        return this.sseKeepAliveFilter.stats();
+    }
+
+    //Prometheus text format
+    @GetMapping(value = "/metrics", produces = PrometheusText.CONTENT_TYPE)
+    public String metrics() {
+        PrometheusText text = new PrometheusText();
+        this.requestMetrics.writeTo(text);
+        return text
+                .gauges("concurrency_limiter", "limiter", concurrency(), "Adaptive concurrency limiter statistics")
+                .gauges("mongo_cursor", "command", this.cursorMetrics.stats(), "Mongo cursor batch statistics")
+                .gauges("request_scheduler", "class", this.priorityRequestScheduler.stats(), "Request scheduling lane statistics")
+                .gauges("tracing", "service", Map.of("local", this.tracer.stats()), "Tail sampling and span export statistics")
+                .gauges("event_stream", "stream", Map.of(this.reviewEventFeed.getStreamStats().getName(), this.reviewEventFeed.getStreamStats().summary()), "Event stream fan-out statistics")
+                .gauges("sse_connection", "service", Map.of("local", this.sseKeepAliveFilter.stats()), "SSE heartbeat and idle reclamation statistics")
+                .toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.MovieReviewRepository;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+//RSocket endpoints served next to the HTTP routes in ReviewRouter
+@Controller
+public class ReviewRSocketController {
+
+    private final MovieReviewRepository movieReviewRepository;
+    private final ReviewHandler reviewHandler;
+
+    public ReviewRSocketController(MovieReviewRepository movieReviewRepository, ReviewHandler reviewHandler) {
+        this.movieReviewRepository = movieReviewRepository;
+        this.reviewHandler = reviewHandler;
+    }
+
+    @MessageMapping("reviews.by-movie-info.{movieInfoId}")
+    public Flux<Review> getReviewsByMovieInfoId(@DestinationVariable Long movieInfoId) {
+        return this.movieReviewRepository.findReviewByMovieInfoId(movieInfoId);
+    }
+
+    //Saves and deletions, like the SSE stream
+    @MessageMapping("reviews.stream")
+    public Flux<ReviewEvent> getReviewsStream() {
+        return this.reviewHandler.reviewEvents();
+    }
+}
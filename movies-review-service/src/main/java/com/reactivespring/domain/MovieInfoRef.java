@@ -0,0 +1,14 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//The part of a movies-info-service MovieInfo that the review service needs.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoRef {
+
+    private String movieInfoId;
+}
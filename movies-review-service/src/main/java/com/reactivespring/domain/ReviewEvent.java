@@ -0,0 +1,28 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewEvent {
+
+    @Id
+    private String eventId;
+
+    private Review review;
+
+    //a tombstone for a deleted review, which still names its movieInfoId
+    private boolean deleted;
+
+    public static ReviewEvent saved(Review review) {
+        return new ReviewEvent(null, review, false);
+    }
+
+    public static ReviewEvent deleted(Review review) {
+        return new ReviewEvent(null, review, true);
+    }
+}
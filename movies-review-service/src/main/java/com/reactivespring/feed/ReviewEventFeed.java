@@ -0,0 +1,198 @@
+package com.reactivespring.feed;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.metrics.StreamStats;
+import lombok.extern.java.Log;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+//Change events, saves and deletions, behind /v1/review/stream. In "local" mode they live in an in-process sink replaying the latest
+//review, so a subscriber only sees writes made on the same instance. In "capped" mode every write is appended
+//to a capped collection and each subscriber follows it with a tailable await cursor, starting at the latest event.
+@Component
+@Log
+public class ReviewEventFeed {
+
+    static final String COLLECTION = "reviewEvents";
+    private static final int RESUME_CLOCK_SKEW_SECONDS = 60;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final boolean capped;
+    private final long cappedSizeBytes;
+    private final long cappedMaxDocuments;
+    private final Duration reconnectDelay;
+    private final Sinks.Many<Tuple2<Long, ReviewEvent>> localSink = Sinks.many().replay().latest();
+    private final StreamStats<Review> streamStats = new StreamStats<>("review", false, ReviewEventFeed::estimateSize);
+    private long nextSequence;
+    private final AtomicBoolean collectionReady = new AtomicBoolean();
+
+    public ReviewEventFeed(ReactiveMongoTemplate reactiveMongoTemplate,
+                           @Value("${eventFeed.mode:local}") String mode,
+                           @Value("${eventFeed.cappedSizeBytes:16777216}") long cappedSizeBytes,
+                           @Value("${eventFeed.cappedMaxDocuments:10000}") long cappedMaxDocuments,
+                           @Value("${eventFeed.reconnectDelay:1s}") Duration reconnectDelay) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.capped = "capped".equalsIgnoreCase(mode);
+        this.cappedSizeBytes = cappedSizeBytes;
+        this.cappedMaxDocuments = cappedMaxDocuments;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    public Mono<Void> publish(Review review) {
+        return publish(ReviewEvent.saved(review));
+    }
+
+    public Mono<Void> publishDeleted(Review review) {
+        return publish(ReviewEvent.deleted(review));
+    }
+
+    //The write being announced has already happened, so a failed insert is logged and swallowed rather
+    //than turning a successful write into an error response
+    private Mono<Void> publish(ReviewEvent event) {
+        if (!this.capped) {
+            emit(event);
+            return Mono.empty();
+        }
+        return ensureCollection()
+                .then(this.reactiveMongoTemplate.insert(event, COLLECTION))
+                .then()
+                .onErrorResume(ex -> {
+                    log.log(Level.SEVERE, "Review event for " + event.getReview().getReviewId() + " was not published", ex);
+                    return Mono.empty();
+                });
+    }
+
+    //Emits are serialized, so sequences follow emission order and the sink never sees concurrent
+    //emitters; any failed EmitResult is counted rather than dropped silently.
+    private void emit(ReviewEvent event) {
+        synchronized (this.localSink) {
+            long sequence = this.nextSequence;
+            Sinks.EmitResult result = this.localSink.tryEmitNext(Tuples.of(sequence, event));
+            this.streamStats.recordEmit(result, sequence, event.getReview());
+            if (result.isSuccess()) {
+                this.nextSequence++;
+            } else {
+                log.warning("Review event for " + event.getReview().getReviewId() + " was not emitted: " + result);
+            }
+        }
+    }
+
+    public StreamStats<Review> getStreamStats() {
+        return this.streamStats;
+    }
+
+    public Flux<ReviewEvent> events(String subscriber) {
+        if (!this.capped) {
+            //the latest review is replayed on subscribe, so it counts as not yet delivered
+            long startAfter = Math.max(-1, this.streamStats.lastSequence() - 1);
+            return this.streamStats.track(this.localSink.asFlux(), subscriber, startAfter, Tuple2::getT1)
+                    .map(Tuple2::getT2);
+        }
+        return this.streamStats.track(cappedEvents(), subscriber, StreamStats.NO_SEQUENCE, event -> StreamStats.NO_SEQUENCE);
+    }
+
+    //Starts at the latest event, replayed like the local sink's, then follows the collection
+    private Flux<ReviewEvent> cappedEvents() {
+        return ensureCollection()
+                .then(latestEventId())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMapMany(latest -> {
+                    AtomicReference<ObjectId> lastSeen = new AtomicReference<>();
+                    //a tailable cursor on an empty collection, or one that fell off the end, completes; pick up after the last event
+                    return Flux.defer(() -> lastSeen.get() != null
+                                    ? tail(lastSeen.get(), false)
+                                    : latest.map(start -> tail(start, true)).orElseGet(() -> tail(null, false)))
+                            .doOnNext(event -> lastSeen.set(new ObjectId(event.getEventId())))
+                            .repeatWhen(completed -> completed.delayElements(this.reconnectDelay))
+                            .retryWhen(Retry.backoff(Long.MAX_VALUE, this.reconnectDelay)
+                                    .maxBackoff(this.reconnectDelay.multipliedBy(10))
+                                    .doBeforeRetry(signal -> log.warning("Event feed cursor failed, reconnecting: " + signal.failure())));
+                });
+    }
+
+    //A capped collection keeps insertion order, but ObjectIds minted by different instances do not follow it,
+    //so the start is found by position: the cursor begins at the oldest event and skips up to the given one.
+    //If that event has already rolled out of the collection, what is left is replayed. Should it roll out
+    //while being skipped to, the first event stamped clearly later than it (allowing for clock skew between
+    //instances) ends the skipping instead.
+    private Flux<ReviewEvent> tail(ObjectId from, boolean inclusive) {
+        Flux<ReviewEvent> all = this.reactiveMongoTemplate.tail(new Query(), ReviewEvent.class, COLLECTION);
+        if (from == null) {
+            return all;
+        }
+        return this.reactiveMongoTemplate.exists(Query.query(Criteria.where("_id").is(from)), COLLECTION)
+                .flatMapMany(found -> found ? all.filter(startingAt(from, inclusive)) : all);
+    }
+
+    private static Predicate<ReviewEvent> startingAt(ObjectId from, boolean inclusive) {
+        AtomicBoolean passed = new AtomicBoolean();
+        return event -> {
+            if (passed.get()) {
+                return true;
+            }
+            ObjectId id = new ObjectId(event.getEventId());
+            if (id.equals(from)) {
+                passed.set(true);
+                return inclusive;
+            }
+            if (id.getTimestamp() - from.getTimestamp() > RESUME_CLOCK_SKEW_SECONDS) {
+                passed.set(true);
+                return true;
+            }
+            return false;
+        };
+    }
+
+    //Rough heap footprint of the retained event, for the replay buffer estimate
+    private static long estimateSize(Review review) {
+        return 96 + StreamStats.stringBytes(review.getReviewId()) + StreamStats.stringBytes(review.getComment());
+    }
+
+    private Mono<ObjectId> latestEventId() {
+        BasicQuery newest = new BasicQuery(new Document());
+        newest.setSortObject(new Document("$natural", -1));
+        newest.limit(1);
+        return this.reactiveMongoTemplate.findOne(newest, ReviewEvent.class, COLLECTION)
+                .map(event -> new ObjectId(event.getEventId()));
+    }
+
+    private Mono<Void> ensureCollection() {
+        if (this.collectionReady.get()) {
+            return Mono.empty();
+        }
+        CollectionOptions options = CollectionOptions.empty()
+                .capped()
+                .size(this.cappedSizeBytes)
+                .maxDocuments(this.cappedMaxDocuments);
+        return this.reactiveMongoTemplate.collectionExists(COLLECTION)
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : this.reactiveMongoTemplate.createCollection(COLLECTION, options).then())
+                //another instance may have created it in the meantime
+                .onErrorResume(ex -> this.reactiveMongoTemplate.collectionExists(COLLECTION)
+                        .flatMap(exists -> exists ? Mono.<Void>empty() : Mono.error(ex)))
+                .doOnSuccess(ignored -> this.collectionReady.set(true));
+    }
+}
@@ -1,21 +1,33 @@
 package com.reactivespring.handler;
 
+import com.reactivespring.domain.ProjectedReview;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
 import com.reactivespring.exception.ReviewDataException;
 import com.reactivespring.exception.ReviewNotFoundException;
+import com.reactivespring.feed.ReviewEventFeed;
 import com.reactivespring.repository.MovieReviewRepository;
+import com.reactivespring.util.ETags;
+import com.reactivespring.validation.MovieInfoIdReplica;
 import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -26,22 +38,38 @@ public class ReviewHandler {
 
     private final Validator validator;
     private final MovieReviewRepository movieReviewRepository;
-    private final Sinks.Many<Review> reviewSink = Sinks.many().replay().latest();
-
-    public ReviewHandler(MovieReviewRepository movieReviewRepository, Validator validator) {
+    private final MovieInfoIdReplica movieInfoIdReplica;
+    private final ReviewEventFeed reviewEventFeed;
+    private final boolean groupCommitEnabled;
+    private static final List<String> SORTABLE_FIELDS = List.of("reviewId", "comment", "rating");
+    private static final List<String> PROJECTABLE_FIELDS = List.of("reviewId", "movieInfoId", "comment", "rating");
+
+    public ReviewHandler(MovieReviewRepository movieReviewRepository, Validator validator, MovieInfoIdReplica movieInfoIdReplica, ReviewEventFeed reviewEventFeed,
+                         @Value("${groupCommit.enabled:false}") boolean groupCommitEnabled) {
         this.movieReviewRepository = movieReviewRepository;
         this.validator = validator;
+        this.movieInfoIdReplica = movieInfoIdReplica;
+        this.reviewEventFeed = reviewEventFeed;
+        this.groupCommitEnabled = groupCommitEnabled;
     }
 
     public Mono<ServerResponse> addReview(ServerRequest request) {
         return request
                 .bodyToMono(Review.class)
                 .doOnNext(this::validate)
-                .flatMap(this.movieReviewRepository::save)
-                .doOnNext(this.reviewSink::tryEmitNext)
+                .doOnNext(this::validateMovieInfoId)
+                .flatMap(this::insert)
+                .flatMap(savedReview -> this.reviewEventFeed.publish(savedReview).thenReturn(savedReview))
                 .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue);
     }
 
+    //only new documents are grouped; a client-chosen id keeps save's upsert semantics
+    private Mono<Review> insert(Review review) {
+        return this.groupCommitEnabled && review.getReviewId() == null
+                ? this.movieReviewRepository.insertGrouped(review)
+                : this.movieReviewRepository.save(review);
+    }
+
     private void validate(Review review) {
         Set<ConstraintViolation<Review>> validate = this.validator.validate(review);
         log.info("Validation failed for review");
@@ -55,19 +83,93 @@ public class ReviewHandler {
         }
     }
 
+    private void validateMovieInfoId(Review review) {
+        if (this.movieInfoIdReplica.isKnownMissing(review.getMovieInfoId())) {
+            throw new ReviewDataException("Movie Info Id, does not exist");
+        }
+    }
+
     public Mono<ServerResponse> getAllReviews(ServerRequest request) {
         Flux<Review> reviewByMovieInfoId;
         Optional<String> movieInfoId = request.queryParam("movieInfoId");
+        Optional<Integer> limit = request.queryParam("limit").map(this::parseLimit);
+        Sort sort = request.queryParam("sort").map(this::parseSort).orElse(Sort.unsorted());
+        List<String> fields = request.queryParam("fields").map(this::parseFields).orElse(List.of());
 
-        if (movieInfoId.isPresent()) {
-            reviewByMovieInfoId = this.movieReviewRepository.findReviewByMovieInfoId(Long.valueOf(movieInfoId.get()));
+        if (movieInfoId.isPresent() && fields.isEmpty() && limit.isEmpty() && sort.isUnsorted()) {
+            return getReviewsByMovieInfoId(Long.valueOf(movieInfoId.get()), request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH));
+        }
+
+        if (!fields.isEmpty()) {
+            reviewByMovieInfoId = this.movieReviewRepository.findReviews(movieInfoId.map(Long::valueOf).orElse(null), sort, limit.orElse(null), fields)
+                    .map(ProjectedReview::new);
+        } else if (movieInfoId.isPresent()) {
+            Long id = Long.valueOf(movieInfoId.get());
+            reviewByMovieInfoId = limit.isPresent()
+                    ? this.movieReviewRepository.findReviewByMovieInfoId(id, PageRequest.of(0, limit.get(), sort))
+                    : this.movieReviewRepository.findReviewByMovieInfoId(id, sort);
         } else {
-            reviewByMovieInfoId = this.movieReviewRepository.findAll();
+            reviewByMovieInfoId = sort.isSorted()
+                    ? this.movieReviewRepository.findAll(sort)
+                    : this.movieReviewRepository.findAll();
+            if (limit.isPresent()) {
+                reviewByMovieInfoId = reviewByMovieInfoId.take(limit.get());
+            }
         }
 
         return ServerResponse.ok().body(reviewByMovieInfoId, Review.class);
     }
 
+    //The plain per-movie listing carries an ETag built from the stored review etags, so the tag is known
+    //before the body and the reviews are streamed rather than collected. A matching If-None-Match is
+    //answered without loading the reviews. A review saved between the tag and the body reads leaves an
+    //older tag on a newer body, which only costs the client one more full response.
+    private Mono<ServerResponse> getReviewsByMovieInfoId(Long movieInfoId, String ifNoneMatch) {
+        return this.movieReviewRepository.findReviewListEtag(movieInfoId)
+                .flatMap(etag -> ETags.matches(ifNoneMatch, etag)
+                        ? ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(etag).build()
+                        : ServerResponse.ok().eTag(etag).body(this.movieReviewRepository.findReviewsByMovieInfoId(movieInfoId), Review.class))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().body(this.movieReviewRepository.findReviewsByMovieInfoId(movieInfoId), Review.class)));
+    }
+
+    private Integer parseLimit(String limit) {
+        try {
+            int value = Integer.parseInt(limit);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ReviewDataException("Limit must be a positive number");
+    }
+
+    //fields=comment,rating
+    private List<String> parseFields(String fields) {
+        List<String> projection = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (!PROJECTABLE_FIELDS.containsAll(projection)) {
+            throw new ReviewDataException("Fields must be among " + PROJECTABLE_FIELDS);
+        }
+        return projection;
+    }
+
+    //sort=rating,desc
+    private Sort parseSort(String sort) {
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(property)) {
+            throw new ReviewDataException("Sort field must be one of " + SORTABLE_FIELDS);
+        }
+
+        Sort.Direction direction = parts.length > 1
+                ? Sort.Direction.fromOptionalString(parts[1].trim()).orElseThrow(() -> new ReviewDataException("Sort direction must be asc or desc"))
+                : Sort.Direction.ASC;
+        return Sort.by(direction, property);
+    }
+
     public Mono<ServerResponse> updateReview(ServerRequest request) {
         String id = request.pathVariable("id");
         return this.movieReviewRepository.findById(id)
@@ -79,6 +181,7 @@ public class ReviewHandler {
                             return existingReview;
                         })
                         .flatMap(this.movieReviewRepository::save)
+                        .flatMap(savedReview -> this.reviewEventFeed.publish(savedReview).thenReturn(savedReview))
                         .flatMap(savedReview -> ServerResponse.ok().bodyValue(savedReview))
                 );
                 //.switchIfEmpty(ServerResponse.notFound().build()); //  Otra manera de hacer bad request
@@ -88,7 +191,8 @@ public class ReviewHandler {
         String id = request.pathVariable("id");
         return this.movieReviewRepository.findById(id)
                 .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found for the ID -> " + id)))
-                .flatMap(existingReview -> movieReviewRepository.deleteById(id))
+                .flatMap(existingReview -> movieReviewRepository.deleteById(id)
+                        .then(this.reviewEventFeed.publishDeleted(existingReview)))
                 .then(ServerResponse.noContent().build());
 
     }
@@ -97,9 +201,17 @@ public class ReviewHandler {
         return ServerResponse
                 .ok()
                 .contentType(MediaType.TEXT_EVENT_STREAM)
-                .body(this.reviewSink.asFlux(), Review.class)
+                .body(this.reviewEventFeed.events("sse " + request.remoteAddress().map(String::valueOf).orElse("unknown"))
+                        .map(event -> ServerSentEvent.builder(event.getReview())
+                                .event(event.isDeleted() ? "delete" : null)
+                                .build()), new ParameterizedTypeReference<ServerSentEvent<Review>>() {
+                })
                 .log();
 
 
     }
+
+    public Flux<ReviewEvent> reviewEvents() {
+        return this.reviewEventFeed.events("rsocket");
+    }
 }
@@ -2,9 +2,15 @@ package com.reactivespring.repository;
 
 
 import com.reactivespring.domain.Review;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface MovieReviewRepository extends ReactiveMongoRepository<Review, String> {
+public interface MovieReviewRepository extends ReactiveMongoRepository<Review, String>, MovieReviewRepositoryCustom {
     Flux<Review> findReviewByMovieInfoId(Long movieInfoId);
+
+    Flux<Review> findReviewByMovieInfoId(Long movieInfoId, Sort sort);
+
+    Flux<Review> findReviewByMovieInfoId(Long movieInfoId, Pageable pageable);
 }
@@ -0,0 +1,23 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//Reads decoded by ReviewCodec directly from the driver, bypassing MappingMongoConverter.
+public interface MovieReviewRepositoryCustom {
+
+    Flux<Review> findReviewsByMovieInfoId(Long movieInfoId);
+
+    //Insert through the group-commit writer; completes once the batch holding it is acknowledged
+    Mono<Review> insertGrouped(Review review);
+
+    //Combined etag of a movie's reviews, read from the stored etags only; empty when any review lacks one
+    Mono<String> findReviewListEtag(Long movieInfoId);
+
+    //Projected read: only the given Review properties are fetched. movieInfoId and limit may be null.
+    Flux<Review> findReviews(Long movieInfoId, Sort sort, Integer limit, List<String> fields);
+}
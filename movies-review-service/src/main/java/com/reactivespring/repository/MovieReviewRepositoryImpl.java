@@ -0,0 +1,103 @@
+package com.reactivespring.repository;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.reactivespring.domain.Review;
+import com.reactivespring.util.ETags;
+import com.reactivespring.util.GroupCommitWriter;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class MovieReviewRepositoryImpl implements MovieReviewRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int batchSize;
+    private final int limitRate;
+    private final GroupCommitWriter<Review> groupCommitWriter;
+
+    public MovieReviewRepositoryImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                     @Value("${mongoCursor.findByMovieInfoId.batchSize:200}") int batchSize,
+                                     @Value("${mongoCursor.findByMovieInfoId.limitRate:128}") int limitRate,
+                                     @Value("${groupCommit.maxBatchSize:64}") int groupCommitMaxBatchSize,
+                                     @Value("${groupCommit.maxDelay:500us}") Duration groupCommitMaxDelay,
+                                     @Value("${groupCommit.maxInFlight:4}") int groupCommitMaxInFlight,
+                                     @Value("${groupCommit.journal:true}") boolean groupCommitJournal) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.batchSize = batchSize;
+        this.limitRate = limitRate;
+        this.groupCommitWriter = new GroupCommitWriter<>(
+                this.reactiveMongoTemplate
+                        .getCollection(this.reactiveMongoTemplate.getCollectionName(Review.class))
+                        .map(collection -> collection.withDocumentClass(Review.class))
+                        .map(collection -> groupCommitJournal ? collection.withWriteConcern(WriteConcern.JOURNALED) : collection),
+                groupCommitMaxBatchSize, groupCommitMaxDelay, groupCommitMaxInFlight);
+    }
+
+    @PreDestroy
+    public void close() {
+        this.groupCommitWriter.close();
+    }
+
+    @Override
+    public Mono<Review> insertGrouped(Review review) {
+        return Mono.defer(() -> {
+            if (review.getReviewId() == null) {
+                review.setReviewId(new ObjectId().toHexString());
+            }
+            return this.groupCommitWriter.write(review);
+        });
+    }
+
+    @Override
+    public Flux<Review> findReviewsByMovieInfoId(Long movieInfoId) {
+        return this.reactiveMongoTemplate
+                .getCollection(this.reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMapMany(collection -> collection
+                        .withDocumentClass(Review.class)
+                        .find(Filters.eq("movieInfoId", movieInfoId))
+                        .batchSize(this.batchSize))
+                .limitRate(this.limitRate);
+    }
+
+    @Override
+    public Mono<String> findReviewListEtag(Long movieInfoId) {
+        return this.reactiveMongoTemplate
+                .getCollection(this.reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMapMany(collection -> collection
+                        .find(Filters.eq("movieInfoId", movieInfoId))
+                        .projection(Projections.fields(Projections.include("etag"), Projections.excludeId())))
+                .map(document -> Optional.ofNullable(document.getString("etag")))
+                .collectList()
+                .filter(etags -> etags.stream().allMatch(Optional::isPresent))
+                .map(etags -> ETags.combine(etags.stream().map(Optional::get).collect(Collectors.toList())));
+    }
+
+    @Override
+    public Flux<Review> findReviews(Long movieInfoId, Sort sort, Integer limit, List<String> fields) {
+        Query query = movieInfoId == null
+                ? new Query()
+                : Query.query(Criteria.where("movieInfoId").is(movieInfoId));
+        query.with(sort);
+        if (limit != null) {
+            query.limit(limit);
+        }
+        fields.forEach(query.fields()::include);
+        if (!fields.contains("reviewId")) {
+            query.fields().exclude("reviewId");
+        }
+        return this.reactiveMongoTemplate.find(query, Review.class);
+    }
+}
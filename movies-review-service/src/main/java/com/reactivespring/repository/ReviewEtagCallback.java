@@ -0,0 +1,21 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.util.ETags;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//Stores the content hash next to every saved Review, so a conditional GET can compare the
+//stored tags through a projection instead of loading the reviews.
+@Component
+public class ReviewEtagCallback implements ReactiveBeforeSaveCallback<Review> {
+
+    @Override
+    public Publisher<Review> onBeforeSave(Review review, Document document, String collection) {
+        document.put("etag", ETags.ofReview(review.getMovieInfoId(), review.getComment(), review.getRating()));
+        return Mono.just(review);
+    }
+}
@@ -0,0 +1,146 @@
+package com.reactivespring.util;
+
+//Open-addressing set of primitive longs: no boxing and 8 bytes per slot.
+//Writes are serialized; reads are lock-free against the current table. A removal leaves a tombstone in
+//place of the value, so no entry ever moves within a published table and a concurrent reader never misses
+//a value that is still present. Tombstones count towards the load factor; once it is reached they are
+//purged by building a fresh table, which is only published when complete.
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private volatile long[] table;
+    //the two sentinel values can't be stored in the table, so they are tracked apart
+    private volatile boolean containsEmptyKey;
+    private volatile boolean containsRemovedKey;
+    private int size;
+    private int tombstones;
+
+    public LongHashSet(int expectedSize) {
+        this.table = new long[tableSizeFor(expectedSize)];
+    }
+
+    public synchronized boolean add(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            boolean added = !containsSentinel(value);
+            if (added) {
+                setSentinel(value, true);
+                this.size++;
+            }
+            return added;
+        }
+
+        if ((this.size + this.tombstones + 1) * 2 > this.table.length) {
+            //grow only when the live values alone need it, otherwise just purge the tombstones
+            int length = (this.size + 1) * 4 > this.table.length ? this.table.length * 2 : this.table.length;
+            this.table = rehash(this.table, length);
+            this.tombstones = 0;
+        }
+        long[] current = this.table;
+        int mask = current.length - 1;
+        int reusable = -1;
+        for (int slot = mix(value) & mask; ; slot = (slot + 1) & mask) {
+            long existing = current[slot];
+            if (existing == value) {
+                return false;
+            }
+            if (existing == REMOVED && reusable < 0) {
+                reusable = slot;
+            } else if (existing == EMPTY) {
+                if (reusable >= 0) {
+                    current[reusable] = value;
+                    this.tombstones--;
+                } else {
+                    current[slot] = value;
+                }
+                this.size++;
+                return true;
+            }
+        }
+    }
+
+    public synchronized boolean remove(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            boolean removed = containsSentinel(value);
+            if (removed) {
+                setSentinel(value, false);
+                this.size--;
+            }
+            return removed;
+        }
+
+        long[] current = this.table;
+        int mask = current.length - 1;
+        for (int slot = mix(value) & mask; ; slot = (slot + 1) & mask) {
+            long existing = current[slot];
+            if (existing == value) {
+                current[slot] = REMOVED;
+                this.size--;
+                this.tombstones++;
+                return true;
+            }
+            if (existing == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            return containsSentinel(value);
+        }
+        long[] current = this.table;
+        int mask = current.length - 1;
+        for (int slot = mix(value) & mask; ; slot = (slot + 1) & mask) {
+            long existing = current[slot];
+            if (existing == value) {
+                return true;
+            }
+            if (existing == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    private boolean containsSentinel(long value) {
+        return value == EMPTY ? this.containsEmptyKey : this.containsRemovedKey;
+    }
+
+    private void setSentinel(long value, boolean present) {
+        if (value == EMPTY) {
+            this.containsEmptyKey = present;
+        } else {
+            this.containsRemovedKey = present;
+        }
+    }
+
+    private static long[] rehash(long[] table, int newLength) {
+        long[] resized = new long[newLength];
+        int mask = newLength - 1;
+        for (long value : table) {
+            if (value != EMPTY && value != REMOVED) {
+                int slot = mix(value) & mask;
+                while (resized[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                resized[slot] = value;
+            }
+        }
+        return resized;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        return Math.max(16, capacity);
+    }
+
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,173 @@
+package com.reactivespring.validation;
+
+import com.reactivespring.domain.MovieInfoRef;
+import com.reactivespring.util.LongHashSet;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Local replica of the movie ids known to movies-info-service, so addReview can check
+//movieInfoId in memory instead of calling movies-info-service on every write.
+//Bootstrapped with a bulk read and kept current from the movie-info stream, deletes included. Only numeric
+//ids are kept, since Review.movieInfoId is a Long. Until the bootstrap completes nothing is rejected.
+@Component
+@Log
+public class MovieInfoIdReplica {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<MovieInfoRef>> MOVIE_INFO_EVENT_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final boolean enabled;
+    private final String movieInfoUrl;
+    private final WebClient webClient;
+    private final LongHashSet movieInfoIds;
+    private final AtomicReference<String> lastEventId = new AtomicReference<>();
+    //Ids the stream deleted while the bootstrap ran; the bulk read may still return them
+    private final Set<Long> deletedDuringBootstrap = new HashSet<>();
+    private volatile boolean ready;
+    private volatile Disposable subscription;
+
+    public MovieInfoIdReplica(WebClient.Builder webClientBuilder,
+                              @Value("${movieInfoValidation.enabled:false}") boolean enabled,
+                              @Value("${movieInfoValidation.movieInfoUrl:http://localhost:8080/v1/movie-info}") String movieInfoUrl,
+                              @Value("${movieInfoValidation.expectedSize:100000}") int expectedSize) {
+        this.webClient = webClientBuilder.build();
+        this.enabled = enabled;
+        this.movieInfoUrl = movieInfoUrl;
+        this.movieInfoIds = new LongHashSet(expectedSize);
+    }
+
+    public boolean isKnownMissing(Long movieInfoId) {
+        return this.enabled && this.ready && movieInfoId != null && !this.movieInfoIds.contains(movieInfoId);
+    }
+
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    public int size() {
+        return this.movieInfoIds.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!this.enabled || this.subscription != null) {
+            return;
+        }
+
+        Flux<ServerSentEvent<MovieInfoRef>> changes = Flux.defer(this::connectStream)
+                .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .transientErrors(true));
+
+        Flux<MovieInfoRef> bootstrap = this.webClient
+                .get()
+                .uri(this.movieInfoUrl)
+                .retrieve()
+                .bodyToFlux(MovieInfoRef.class)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)));
+
+        start(changes, bootstrap);
+    }
+
+    void start(Flux<ServerSentEvent<MovieInfoRef>> changes, Flux<MovieInfoRef> bootstrap) {
+        this.subscription = Flux.merge(
+                        changes.doOnNext(this::apply).then(),
+                        bootstrap.doOnNext(this::bootstrap).then()
+                                .doOnSuccess(ignored -> {
+                                    synchronized (this.deletedDuringBootstrap) {
+                                        this.ready = true;
+                                        this.deletedDuringBootstrap.clear();
+                                    }
+                                    log.info("MovieInfo id replica bootstrapped with " + this.movieInfoIds.size() + " ids");
+                                }))
+                .subscribe(null, ex -> log.severe("MovieInfo id replica stopped : " + ex.getMessage()));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (this.subscription != null) {
+            this.subscription.dispose();
+        }
+    }
+
+    void apply(ServerSentEvent<MovieInfoRef> event) {
+        Long id = parseId(event.data());
+        if (id == null) {
+            return;
+        }
+        synchronized (this.deletedDuringBootstrap) {
+            if ("delete".equals(event.event())) {
+                if (!this.ready) {
+                    this.deletedDuringBootstrap.add(id);
+                }
+                this.movieInfoIds.remove(id);
+            } else {
+                this.deletedDuringBootstrap.remove(id);
+                this.movieInfoIds.add(id);
+            }
+        }
+    }
+
+    private void bootstrap(MovieInfoRef movieInfoRef) {
+        Long id = parseId(movieInfoRef);
+        if (id == null) {
+            return;
+        }
+        synchronized (this.deletedDuringBootstrap) {
+            if (!this.deletedDuringBootstrap.contains(id)) {
+                this.movieInfoIds.add(id);
+            }
+        }
+    }
+
+    private static Long parseId(MovieInfoRef movieInfoRef) {
+        if (movieInfoRef == null || movieInfoRef.getMovieInfoId() == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(movieInfoRef.getMovieInfoId());
+        } catch (NumberFormatException ignored) {
+            return null;
+        }
+    }
+
+    private Flux<ServerSentEvent<MovieInfoRef>> connectStream() {
+        String lastId = this.lastEventId.get();
+        return this.webClient
+                .get()
+                .uri(this.movieInfoUrl + "/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> {
+                    if (lastId != null) {
+                        headers.set("Last-Event-ID", lastId);
+                    }
+                })
+                .retrieve()
+                .bodyToFlux(MOVIE_INFO_EVENT_TYPE)
+                .doOnNext(event -> {
+                    if (event.id() != null) {
+                        this.lastEventId.set(event.id());
+                    }
+                })
+                .filter(event -> event.data() != null);
+    }
+}
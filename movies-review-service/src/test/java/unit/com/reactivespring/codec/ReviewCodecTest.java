@@ -0,0 +1,67 @@
+package com.reactivespring.codec;
+
+import com.mongodb.MongoClientSettings;
+import com.reactivespring.domain.Review;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewCodecTest {
+
+    private final ReviewCodec codec = new ReviewCodec();
+    private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+
+    @Test
+    void storedLayoutMatchesSpringData() {
+        assertLayoutMatches(new Review(new ObjectId().toHexString(), 1L, "Awesome Movie", 9.0));
+        assertLayoutMatches(new Review("r1", 2L, null, 7.5));
+    }
+
+    @Test
+    void decodesWhatSpringDataWrites() {
+        Review review = new Review(new ObjectId().toHexString(), 1L, "Awesome Movie", 9.0);
+
+        assertEquals(review, decode(springDataDocument(review)));
+    }
+
+    @Test
+    void roundTrips() {
+        Review review = new Review("r1", 1L, "Awesome Movie", 9.0);
+
+        assertEquals(review, decode(encode(review)));
+    }
+
+    //The codec adds the etag used for conditional reads; everything else must be what Spring Data stores
+    private void assertLayoutMatches(Review review) {
+        BsonDocument encoded = encode(review);
+        encoded.remove("etag");
+
+        assertEquals(springDataDocument(review), encoded);
+    }
+
+    private BsonDocument springDataDocument(Review review) {
+        Document document = new Document();
+        this.converter.write(review, document);
+        return document.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private BsonDocument encode(Review review) {
+        BsonDocument document = new BsonDocument();
+        this.codec.encode(new BsonDocumentWriter(document), review, EncoderContext.builder().build());
+        return document;
+    }
+
+    private Review decode(BsonDocument document) {
+        return this.codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
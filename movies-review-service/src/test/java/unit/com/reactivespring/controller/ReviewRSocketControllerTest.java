@@ -0,0 +1,83 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.MovieReviewRepository;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReviewRSocketControllerTest {
+
+    private final MovieReviewRepository movieReviewRepository = mock(MovieReviewRepository.class);
+    private final ReviewHandler reviewHandler = mock(ReviewHandler.class);
+
+    private CloseableChannel server;
+    private RSocketRequester requester;
+
+    @BeforeEach
+    void startServer() {
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2JsonEncoder()))
+                .decoders(decoders -> decoders.add(new Jackson2JsonDecoder()))
+                .build();
+        RSocketMessageHandler messageHandler = new RSocketMessageHandler();
+        messageHandler.setRSocketStrategies(strategies);
+        messageHandler.setHandlers(List.of(new ReviewRSocketController(this.movieReviewRepository, this.reviewHandler)));
+        messageHandler.afterPropertiesSet();
+
+        this.server = RSocketServer.create(messageHandler.responder())
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+        this.requester = RSocketRequester.builder()
+                .rsocketStrategies(strategies)
+                .dataMimeType(MimeTypeUtils.APPLICATION_JSON)
+                .tcp("localhost", this.server.address().getPort());
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.requester.dispose();
+        this.server.dispose();
+    }
+
+    @Test
+    void reviewsByMovieInfoId() {
+        when(this.movieReviewRepository.findReviewByMovieInfoId(1L)).thenReturn(Flux.just(
+                new Review("r1", 1L, "Awesome Movie", 9.0),
+                new Review("r2", 1L, "Excellent Movie", 8.0)));
+
+        StepVerifier.create(this.requester.route("reviews.by-movie-info.{movieInfoId}", 1L).retrieveFlux(Review.class))
+                .expectNextMatches(review -> review.getReviewId().equals("r1"))
+                .expectNextMatches(review -> review.getReviewId().equals("r2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void streamCarriesSavesAndDeletions() {
+        Review review = new Review("r1", 1L, "Awesome Movie", 9.0);
+        when(this.reviewHandler.reviewEvents()).thenReturn(Flux.just(ReviewEvent.saved(review), ReviewEvent.deleted(review)));
+
+        StepVerifier.create(this.requester.route("reviews.stream").retrieveFlux(ReviewEvent.class))
+                .expectNextMatches(event -> !event.isDeleted() && event.getReview().getReviewId().equals("r1"))
+                .expectNextMatches(event -> event.isDeleted() && event.getReview().getMovieInfoId().equals(1L))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,85 @@
+package com.reactivespring.feed;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReviewEventFeedTest {
+
+    private static final String OLDEST = "5effffff0000000000000001";
+    private static final String LATEST = "5f000000ffffffffffffffff";
+    private static final String LATE = "5f0000000000000000000001";
+
+    @Test
+    void localFeedReplaysLatestThenFollows() {
+        ReviewEventFeed feed = new ReviewEventFeed(null, "local", 1024, 10, Duration.ofSeconds(1));
+        feed.publish(new Review("r1", 1L, "Awesome Movie", 9.0)).block();
+        feed.publish(new Review("r2", 1L, "Excellent Movie", 8.0)).block();
+
+        StepVerifier.create(feed.events("test"))
+                .assertNext(event -> assertEquals("r2", event.getReview().getReviewId()))
+                .then(() -> feed.publishDeleted(new Review("r2", 1L, "Excellent Movie", 8.0)).block())
+                .assertNext(event -> {
+                    assertTrue(event.isDeleted());
+                    assertEquals(1L, event.getReview().getMovieInfoId());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void cappedFeedStartsAtLatestInsertedAndFollowsInsertionOrder() {
+        ReactiveMongoTemplate template = cappedTemplate();
+        when(template.findOne(any(Query.class), eq(ReviewEvent.class), eq(ReviewEventFeed.COLLECTION)))
+                .thenReturn(Mono.just(event(LATEST, "r2")));
+
+        //"late" was minted on another instance with a smaller id, but inserted after the latest
+        StepVerifier.create(cappedFeed(template).events("test"))
+                .assertNext(event -> assertEquals(LATEST, event.getEventId()))
+                .assertNext(event -> assertEquals(LATE, event.getEventId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void failedCappedPublishDoesNotFailTheWrite() {
+        ReactiveMongoTemplate template = cappedTemplate();
+        when(template.insert(any(ReviewEvent.class), eq(ReviewEventFeed.COLLECTION))).thenReturn(Mono.error(new IllegalStateException("not primary")));
+
+        StepVerifier.create(cappedFeed(template).publish(new Review("r1", 1L, "Awesome Movie", 9.0)))
+                .verifyComplete();
+    }
+
+    private static ReactiveMongoTemplate cappedTemplate() {
+        ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+        when(template.collectionExists(ReviewEventFeed.COLLECTION)).thenReturn(Mono.just(true));
+        when(template.exists(any(Query.class), eq(ReviewEventFeed.COLLECTION))).thenReturn(Mono.just(true));
+        when(template.tail(any(Query.class), eq(ReviewEvent.class), eq(ReviewEventFeed.COLLECTION))).thenReturn(Flux.just(
+                event(OLDEST, "r1"), event(LATEST, "r2"), event(LATE, "r3")));
+        return template;
+    }
+
+    private static ReviewEventFeed cappedFeed(ReactiveMongoTemplate template) {
+        return new ReviewEventFeed(template, "capped", 1024, 10, Duration.ofMillis(100));
+    }
+
+    private static ReviewEvent event(String eventId, String reviewId) {
+        ReviewEvent event = ReviewEvent.saved(new Review(reviewId, 1L, "Awesome Movie", 9.0));
+        event.setEventId(eventId);
+        return event;
+    }
+}
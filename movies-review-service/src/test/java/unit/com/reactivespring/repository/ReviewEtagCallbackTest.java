@@ -0,0 +1,37 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.util.ETags;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewEtagCallbackTest {
+
+    private final ReviewEtagCallback callback = new ReviewEtagCallback();
+
+    @Test
+    void changedReviewChangesTheListTag() {
+        String first = storedEtag(new Review("r1", 1L, "Awesome Movie", 9.0));
+        String second = storedEtag(new Review("r2", 1L, "Excellent Movie", 8.0));
+        String secondUpdated = storedEtag(new Review("r2", 1L, "Excellent Movie", 7.0));
+
+        assertNotEquals(second, secondUpdated);
+        assertNotEquals(ETags.combine(List.of(first, second)), ETags.combine(List.of(first, secondUpdated)));
+    }
+
+    @Test
+    void unchangedReviewKeepsItsTag() {
+        assertEquals(storedEtag(new Review("r1", 1L, "Awesome Movie", 9.0)), storedEtag(new Review("r1", 1L, "Awesome Movie", 9.0)));
+    }
+
+    private String storedEtag(Review review) {
+        Document document = new Document();
+        Mono.from(this.callback.onBeforeSave(review, document, "review")).block();
+        return document.getString("etag");
+    }
+}
@@ -2,14 +2,19 @@ package com.reactivespring.routes;
 
 import com.reactivespring.domain.Review;
 import com.reactivespring.exception.GlobalErrorHandler;
+import com.reactivespring.feed.ReviewEventFeed;
 import com.reactivespring.handler.ReviewHandler;
 import com.reactivespring.repository.MovieReviewRepository;
 import com.reactivespring.router.ReviewRouter;
+import com.reactivespring.validation.MovieInfoIdReplica;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -21,6 +26,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest
@@ -31,6 +37,12 @@ public class ReviewsUnitTest {
     @MockBean
     private MovieReviewRepository reviewRepository;
 
+    @MockBean
+    private MovieInfoIdReplica movieInfoIdReplica;
+
+    @MockBean
+    private ReviewEventFeed reviewEventFeed;
+
     @Autowired
     private WebTestClient webClient;
 
@@ -41,6 +53,7 @@ public class ReviewsUnitTest {
         Review newReview = new Review("rev", 1L, "New Movie Review Added", 9.0);
 
         when(reviewRepository.save(isA(Review.class))).thenReturn(Mono.just(newReview));
+        when(reviewEventFeed.publish(isA(Review.class))).thenReturn(Mono.empty());
 
         webClient
                 .post()
@@ -88,6 +101,7 @@ public class ReviewsUnitTest {
 
         when(reviewRepository.findById(isA(String.class))).thenReturn(Mono.just(reviewExisting));
         when(reviewRepository.save(isA(Review.class))).thenReturn(Mono.just(review));
+        when(reviewEventFeed.publish(isA(Review.class))).thenReturn(Mono.empty());
 
         webClient
                 .put()
@@ -114,6 +128,7 @@ public class ReviewsUnitTest {
 
         when(reviewRepository.findById(isA(String.class))).thenReturn(Mono.just(reviewExisting));
         when(reviewRepository.deleteById(isA(String.class))).thenReturn(Mono.empty());
+        when(reviewEventFeed.publishDeleted(reviewExisting)).thenReturn(Mono.empty());
 
         webClient
                 .delete()
@@ -126,6 +141,8 @@ public class ReviewsUnitTest {
                     Void responseBody = voidResponse.getResponseBody();
                     assertNull(responseBody);
                 });
+
+        verify(reviewEventFeed).publishDeleted(reviewExisting);
     }
 
     @Test
@@ -140,7 +157,8 @@ public class ReviewsUnitTest {
                 .queryParam("movieInfoId", movieInfoId)
                 .buildAndExpand().toUri();
 
-        when(reviewRepository.findReviewByMovieInfoId(isA(Long.class))).thenReturn(Flux.fromIterable(reviews));
+        when(reviewRepository.findReviewsByMovieInfoId(isA(Long.class))).thenReturn(Flux.fromIterable(reviews));
+        when(reviewRepository.findReviewListEtag(movieInfoId)).thenReturn(Mono.empty());
 
         webClient
                 .get()
@@ -153,11 +171,32 @@ public class ReviewsUnitTest {
 
     }
 
+    @Test
+    void getReviewByMovieInfoIdCarriesStoredEtag() {
+        when(reviewRepository.findReviewsByMovieInfoId(1L)).thenReturn(Flux.just(
+                new Review("r1", 1L, "Awesome Movie", 9.0),
+                new Review("r2", 1L, "Excellent Movie", 8.0)));
+        when(reviewRepository.findReviewListEtag(1L)).thenReturn(Mono.just("abc"));
+
+        webClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"stale\"")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"abc\"")
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
     @Test
     void addReviewValidations() {
         Review newReview = new Review("rev", null, "New Movie Review Added", -9.0);
 
         when(reviewRepository.save(isA(Review.class))).thenReturn(Mono.just(newReview));
+        when(reviewEventFeed.publish(isA(Review.class))).thenReturn(Mono.empty());
 
         webClient
                 .post()
@@ -171,4 +210,128 @@ public class ReviewsUnitTest {
 
         ;
     }
+
+    @Test
+    void getReviewByMovieInfoIdWithLimitAndSort() {
+        List<Review> reviews = List.of(new Review(null, 1L, "Awesome Movie", 9.0));
+
+        URI uri = UriComponentsBuilder
+                .fromUriString(REVIEWS_URL)
+                .queryParam("movieInfoId", 1L)
+                .queryParam("limit", 1)
+                .queryParam("sort", "rating,desc")
+                .buildAndExpand().toUri();
+
+        when(reviewRepository.findReviewByMovieInfoId(1L, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "rating"))))
+                .thenReturn(Flux.fromIterable(reviews));
+
+        webClient
+                .get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getReviewsInvalidSort() {
+        URI uri = UriComponentsBuilder
+                .fromUriString(REVIEWS_URL)
+                .queryParam("movieInfoId", 1L)
+                .queryParam("sort", "password")
+                .buildAndExpand().toUri();
+
+        webClient
+                .get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Sort field must be one of [reviewId, comment, rating]");
+    }
+
+    @Test
+    void getReviewByMovieInfoIdNotModified() {
+        when(reviewRepository.findReviewListEtag(1L)).thenReturn(Mono.just("abc"));
+
+        webClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"abc\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"abc\"");
+    }
+
+    @Test
+    void getReviewsWithFields() {
+        when(reviewRepository.findReviews(1L, Sort.unsorted(), null, List.of("comment", "rating")))
+                .thenReturn(Flux.just(new Review(null, null, "Awesome Movie", 9.0)));
+
+        URI uri = UriComponentsBuilder
+                .fromUriString(REVIEWS_URL)
+                .queryParam("movieInfoId", 1L)
+                .queryParam("fields", "comment,rating")
+                .buildAndExpand().toUri();
+
+        webClient
+                .get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].comment").isEqualTo("Awesome Movie")
+                .jsonPath("$[0].reviewId").doesNotExist()
+                .jsonPath("$[0].movieInfoId").doesNotExist();
+    }
+
+    @Test
+    void getAllReviewsKeepsNullFields() {
+        when(reviewRepository.findAll()).thenReturn(Flux.just(new Review("rev", 1L, null, 9.0)));
+
+        webClient
+                .get()
+                .uri(REVIEWS_URL)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].comment").hasJsonPath()
+                .jsonPath("$[0].comment").isEmpty();
+    }
+
+    @Test
+    void getReviewsInvalidFields() {
+        webClient
+                .get()
+                .uri(REVIEWS_URL + "?fields=comment,author")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Fields must be among [reviewId, movieInfoId, comment, rating]");
+    }
+
+    @Test
+    void addReviewUnknownMovieInfoId() {
+        Review newReview = new Review("rev", 404L, "New Movie Review Added", 9.0);
+
+        when(movieInfoIdReplica.isKnownMissing(isA(Long.class))).thenReturn(true);
+
+        webClient
+                .post()
+                .uri(REVIEWS_URL)
+                .bodyValue(newReview)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Movie Info Id, does not exist");
+    }
 }
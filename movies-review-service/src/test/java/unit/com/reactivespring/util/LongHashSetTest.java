@@ -0,0 +1,71 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void addAndContainsAcrossResizes() {
+        LongHashSet set = new LongHashSet(4);
+
+        for (long i = 0; i < 10_000; i++) {
+            set.add(i * 31);
+        }
+
+        assertEquals(10_000, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(31 * 9_999));
+        assertFalse(set.contains(32));
+    }
+
+    @Test
+    void duplicatesAreIgnored() {
+        LongHashSet set = new LongHashSet(16);
+
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(-1));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(-1));
+    }
+
+    @Test
+    void removedValuesAreGoneAndOthersStay() {
+        LongHashSet set = new LongHashSet(16);
+        for (long i = 0; i < 100; i++) {
+            set.add(i);
+        }
+
+        assertTrue(set.remove(0));
+        assertTrue(set.remove(50));
+        assertFalse(set.remove(50));
+
+        assertEquals(98, set.size());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(50));
+        assertTrue(set.contains(51));
+        assertTrue(set.contains(99));
+    }
+
+    @Test
+    void removedSlotsAreReusedAndPurged() {
+        LongHashSet set = new LongHashSet(16);
+
+        //far more removals than the table has slots; tombstones must not fill it up
+        for (long i = 1; i <= 100_000; i++) {
+            assertTrue(set.add(i));
+            assertTrue(set.remove(i));
+        }
+        set.add(7);
+        set.add(Long.MIN_VALUE);
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertFalse(set.contains(100_000));
+        assertFalse(set.add(7));
+    }
+}
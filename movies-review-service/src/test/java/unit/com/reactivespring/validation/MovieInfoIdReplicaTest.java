@@ -0,0 +1,64 @@
+package com.reactivespring.validation;
+
+import com.reactivespring.domain.MovieInfoRef;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieInfoIdReplicaTest {
+
+    private final MovieInfoIdReplica replica = new MovieInfoIdReplica(WebClient.builder(), true, "http://localhost:8080/v1/movie-info", 16);
+
+    @Test
+    void rejectsNothingUntilBootstrapped() {
+        Sinks.Many<MovieInfoRef> bootstrap = Sinks.many().unicast().onBackpressureBuffer();
+
+        this.replica.start(Flux.never(), bootstrap.asFlux());
+        bootstrap.tryEmitNext(new MovieInfoRef("1"));
+
+        assertFalse(this.replica.isReady());
+        assertFalse(this.replica.isKnownMissing(2L));
+
+        bootstrap.tryEmitComplete();
+
+        assertTrue(this.replica.isReady());
+        assertFalse(this.replica.isKnownMissing(1L));
+        assertTrue(this.replica.isKnownMissing(2L));
+        this.replica.close();
+    }
+
+    @Test
+    void appliesCreatesAndDeletes() {
+        Sinks.Many<ServerSentEvent<MovieInfoRef>> changes = Sinks.many().multicast().directBestEffort();
+
+        this.replica.start(changes.asFlux(), Flux.just(new MovieInfoRef("1")));
+        changes.tryEmitNext(ServerSentEvent.builder(new MovieInfoRef("2")).id("e-1").build());
+
+        assertFalse(this.replica.isKnownMissing(2L));
+
+        changes.tryEmitNext(ServerSentEvent.builder(new MovieInfoRef("1")).id("e-2").event("delete").build());
+
+        assertTrue(this.replica.isKnownMissing(1L));
+        assertEquals(1, this.replica.size());
+        this.replica.close();
+    }
+
+    @Test
+    void bootstrapDoesNotRestoreIdDeletedMeanwhile() {
+        Sinks.Many<ServerSentEvent<MovieInfoRef>> changes = Sinks.many().multicast().directBestEffort();
+        Sinks.Many<MovieInfoRef> bootstrap = Sinks.many().unicast().onBackpressureBuffer();
+
+        this.replica.start(changes.asFlux(), bootstrap.asFlux());
+        changes.tryEmitNext(ServerSentEvent.builder(new MovieInfoRef("1")).event("delete").build());
+        //The bulk read started before the delete
+        bootstrap.tryEmitNext(new MovieInfoRef("1"));
+        bootstrap.tryEmitComplete();
+
+        assertTrue(this.replica.isKnownMissing(1L));
+        this.replica.close();
+    }
+}
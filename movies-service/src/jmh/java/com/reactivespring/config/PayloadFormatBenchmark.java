@@ -0,0 +1,73 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+//CPU cost of writing and reading the Movie of PayloadSizeTest in each format CodecConfig serves.
+//Run with ./gradlew jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private Movie movie;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (this.format) {
+            case "json":
+                this.mapper = Jackson2ObjectMapperBuilder.json().build();
+                break;
+            case "smile":
+                this.mapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            default:
+                this.mapper = Jackson2ObjectMapperBuilder.cbor().build();
+        }
+        this.movie = new Movie(
+                new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")),
+                IntStream.range(0, 1_000)
+                        .mapToObj(i -> new Review(String.valueOf(i), 1L, "Awesome Movie " + i, 9.0))
+                        .collect(Collectors.toList()));
+        this.encoded = this.mapper.writeValueAsBytes(this.movie);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return this.mapper.writeValueAsBytes(this.movie);
+    }
+
+    @Benchmark
+    public Movie decode() throws IOException {
+        return this.mapper.readValue(this.encoded, Movie.class);
+    }
+}
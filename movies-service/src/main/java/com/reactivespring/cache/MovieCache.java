@@ -0,0 +1,185 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.util.RequestCoalescer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//Aggregate Movie cache with TTL and stale-while-revalidate:
+// - age <= ttl: served from cache
+// - age <= ttl + staleWhileRevalidate: served from cache, refreshed in the background
+// - older: loaded again; if that load fails, an entry not older than ttl + maxStale is served instead
+//Entries are also invalidated by the movie-info and review change streams, deletions included.
+//An invalidation leaves a versioned marker behind, so a load that was already in flight when it arrived
+//is returned to its callers but not cached. The least recently used entry goes once maximumSize is reached.
+@Component
+@Slf4j
+public class MovieCache {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long staleWhileRevalidateNanos;
+    private final long maxStaleNanos;
+    private final int maximumSize;
+    //access ordered; guarded by itself
+    private final LinkedHashMap<String, CachedMovie> entries;
+    private long lastVersion;
+    private long lastEvictedInvalidation;
+    private final RequestCoalescer<String, Movie> loads = new RequestCoalescer<>();
+    private volatile Disposable invalidations;
+
+    public MovieCache(@Value("${movieCache.enabled:false}") boolean enabled,
+                      @Value("${movieCache.ttl:30s}") Duration ttl,
+                      @Value("${movieCache.staleWhileRevalidate:30s}") Duration staleWhileRevalidate,
+                      @Value("${movieCache.maxStale:10m}") Duration maxStale,
+                      @Value("${movieCache.maximumSize:10000}") int maximumSize) {
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.staleWhileRevalidateNanos = staleWhileRevalidate.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedMovie> eldest) {
+                if (size() <= MovieCache.this.maximumSize) {
+                    return false;
+                }
+                if (eldest.getValue().movie == null) {
+                    MovieCache.this.lastEvictedInvalidation = eldest.getValue().version;
+                }
+                return true;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public Mono<Movie> get(String id, Supplier<Mono<Movie>> loader) {
+        if (!this.enabled) {
+            return loader.get();
+        }
+
+        CachedMovie cached = lookup(id);
+        if (cached != null) {
+            long age = System.nanoTime() - cached.loadedAt;
+            if (age <= this.ttlNanos) {
+                return Mono.just(cached.movie);
+            }
+            if (age <= this.ttlNanos + this.staleWhileRevalidateNanos) {
+                load(id, loader).subscribe(
+                        movie -> log.debug("Refreshed cached Movie {}", id),
+                        ex -> log.warn("Background refresh of Movie {} failed : {}", id, ex.getMessage()));
+                return Mono.just(cached.movie);
+            }
+        }
+
+        return load(id, loader)
+                .onErrorResume(ex -> serveStale(id, ex));
+    }
+
+    public void invalidate(String id) {
+        CachedMovie previous;
+        synchronized (this.entries) {
+            previous = this.entries.put(id, new CachedMovie(null, 0, ++this.lastVersion));
+        }
+        if (previous != null && previous.movie != null) {
+            log.debug("Invalidated cached Movie {}", id);
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return (int) this.entries.values().stream()
+                    .filter(cached -> cached.movie != null)
+                    .count();
+        }
+    }
+
+    public void subscribeToInvalidations(Flux<String> movieInfoIds) {
+        if (this.enabled && this.invalidations == null) {
+            this.invalidations = movieInfoIds.subscribe(this::invalidate,
+                    ex -> log.error("Movie cache invalidation stream terminated : {}", ex.getMessage()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (this.invalidations != null) {
+            this.invalidations.dispose();
+        }
+    }
+
+    private Mono<Movie> load(String id, Supplier<Mono<Movie>> loader) {
+        return this.loads.mono(id, () -> Mono.defer(() -> {
+            long startVersion = currentVersion();
+            return loader.get()
+                    .doOnNext(movie -> put(id, movie, startVersion))
+                    .doOnError(MoviesInfoClientException.class, ex -> invalidate(id));
+        }));
+    }
+
+    private Mono<Movie> serveStale(String id, Throwable ex) {
+        CachedMovie cached = lookup(id);
+        if (ex instanceof MoviesInfoClientException || cached == null || cached.movie == null
+                || System.nanoTime() - cached.loadedAt > this.ttlNanos + this.maxStaleNanos) {
+            return Mono.error(ex);
+        }
+        log.warn("Serving stale Movie {} after failed refresh : {}", id, ex.getMessage());
+        return Mono.just(cached.movie);
+    }
+
+    //A miss, or an invalidation marker, counts as no entry
+    private CachedMovie lookup(String id) {
+        synchronized (this.entries) {
+            CachedMovie cached = this.entries.get(id);
+            return cached == null || cached.movie == null ? null : cached;
+        }
+    }
+
+    private long currentVersion() {
+        synchronized (this.entries) {
+            return this.lastVersion;
+        }
+    }
+
+    //Anything written for the id after the load started, or an evicted invalidation that may have
+    //been for it, makes the loaded movie stale
+    private void put(String id, Movie movie, long startVersion) {
+        synchronized (this.entries) {
+            CachedMovie current = this.entries.get(id);
+            boolean unchanged = current == null
+                    ? this.lastEvictedInvalidation <= startVersion
+                    : current.version <= startVersion;
+            if (unchanged) {
+                this.entries.put(id, new CachedMovie(movie, System.nanoTime(), ++this.lastVersion));
+            } else {
+                log.debug("Dropping Movie {} loaded before its invalidation", id);
+            }
+        }
+    }
+
+    private static class CachedMovie {
+        private final Movie movie;
+        private final long loadedAt;
+        private final long version;
+
+        private CachedMovie(Movie movie, long loadedAt, long version) {
+            this.movie = movie;
+            this.loadedAt = loadedAt;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.StreamChange;
+import com.reactivespring.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Rejects lookups of movie ids that are known to be missing without calling movies-info-service.
+//While the Bloom filter of known ids is complete, an id it has never seen is rejected outright, so a
+//crawler sending unique ids does not reach the backend. The one exception is an ObjectId minted within
+//createdGrace: the movie may have been created after the last event we saw, so it still goes downstream.
+//The Bloom filter counts as complete only while the movie-info stream is connected and a bulk seed has
+//finished on that connection; a dropped stream clears it until the reconnect has been reseeded. Until
+//then an id is rejected only when it returned 404 within the negative TTL.
+//Ids in the Bloom filter (including false positives) always go downstream.
+@Component
+@Slf4j
+public class NegativeLookupFilter {
+
+    private final boolean enabled;
+    private final long negativeTtlNanos;
+    private final long createdGraceMillis;
+    private final int maxNegativeEntries;
+    private final BloomFilter knownIds;
+    private final Map<String, Long> missingIds = new ConcurrentHashMap<>();
+    private volatile boolean knownIdsComplete;
+    private volatile Disposable subscriptions;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder rejectedByNegativeCache = new LongAdder();
+    private final LongAdder rejectedByBloomFilter = new LongAdder();
+    private final LongAdder bloomMissesChecked = new LongAdder();
+    private final LongAdder recordedMisses = new LongAdder();
+
+    public NegativeLookupFilter(@Value("${negativeLookup.enabled:false}") boolean enabled,
+                                @Value("${negativeLookup.negativeTtl:30s}") Duration negativeTtl,
+                                @Value("${negativeLookup.createdGrace:10s}") Duration createdGrace,
+                                @Value("${negativeLookup.maxNegativeEntries:100000}") int maxNegativeEntries,
+                                @Value("${negativeLookup.expectedInsertions:1000000}") long expectedInsertions,
+                                @Value("${negativeLookup.falsePositiveRate:0.01}") double falsePositiveRate) {
+        this.enabled = enabled;
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.createdGraceMillis = createdGrace.toMillis();
+        this.maxNegativeEntries = maxNegativeEntries;
+        this.knownIds = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public boolean mightExist(String movieInfoId) {
+        if (!this.enabled) {
+            return true;
+        }
+        this.lookups.increment();
+        if (this.knownIds.mightContain(movieInfoId)) {
+            return true;
+        }
+
+        Long expiresAt = this.missingIds.get(movieInfoId);
+        if (expiresAt != null) {
+            if (expiresAt - System.nanoTime() > 0) {
+                this.rejectedByNegativeCache.increment();
+                return false;
+            }
+            this.missingIds.remove(movieInfoId, expiresAt);
+        }
+
+        if (!this.knownIdsComplete) {
+            return true;
+        }
+        if (createdRecently(movieInfoId)) {
+            this.bloomMissesChecked.increment();
+            return true;
+        }
+        this.rejectedByBloomFilter.increment();
+        return false;
+    }
+
+    //Mongo ObjectIds start with their creation time in seconds, as 8 hex digits
+    private boolean createdRecently(String movieInfoId) {
+        if (movieInfoId.length() != 24) {
+            return false;
+        }
+        long createdSeconds = 0;
+        for (int i = 0; i < movieInfoId.length(); i++) {
+            int digit = Character.digit(movieInfoId.charAt(i), 16);
+            if (digit < 0) {
+                return false;
+            }
+            if (i < 8) {
+                createdSeconds = createdSeconds << 4 | digit;
+            }
+        }
+        return Math.abs(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(createdSeconds)) <= this.createdGraceMillis;
+    }
+
+    public void recordMissing(String movieInfoId) {
+        if (!this.enabled) {
+            return;
+        }
+        if (this.missingIds.size() >= this.maxNegativeEntries) {
+            long now = System.nanoTime();
+            this.missingIds.values().removeIf(expiresAt -> expiresAt - now <= 0);
+            if (this.missingIds.size() >= this.maxNegativeEntries) {
+                return;
+            }
+        }
+        this.missingIds.put(movieInfoId, System.nanoTime() + this.negativeTtlNanos);
+        this.recordedMisses.increment();
+    }
+
+    public void recordKnown(String movieInfoId) {
+        if (this.enabled && movieInfoId != null) {
+            this.knownIds.put(movieInfoId);
+            this.missingIds.remove(movieInfoId);
+        }
+    }
+
+    public void start(Flux<StreamChange<MovieInfo>> movieInfoChanges, Flux<MovieInfo> allMovieInfos) {
+        if (!this.enabled || this.subscriptions != null) {
+            return;
+        }
+        //Each connection gets its own seed; only the seed of the current connection may mark the filter complete
+        AtomicLong connection = new AtomicLong();
+        this.subscriptions = movieInfoChanges
+                .<Void>flatMap(change -> {
+                    switch (change.getType()) {
+                        case SAVED:
+                            recordKnown(change.getValue().getMovieInfoId());
+                            return Mono.empty();
+                        case DISCONNECTED:
+                            connection.incrementAndGet();
+                            this.knownIdsComplete = false;
+                            return Mono.empty();
+                        case CONNECTED:
+                            long current = connection.incrementAndGet();
+                            return allMovieInfos.doOnNext(movieInfo -> recordKnown(movieInfo.getMovieInfoId()))
+                                    .then()
+                                    .doOnSuccess(ignored -> {
+                                        if (connection.get() == current) {
+                                            this.knownIdsComplete = true;
+                                            log.info("Negative lookup filter seeded with {} known ids", this.knownIds.insertions());
+                                        }
+                                    })
+                                    .onErrorResume(ex -> {
+                                        log.warn("Negative lookup filter seed failed, waiting for the next reconnect : {}", ex.getMessage());
+                                        return Mono.empty();
+                                    });
+                        default:
+                            return Mono.empty();
+                    }
+                })
+                .subscribe(null, ex -> {
+                    this.knownIdsComplete = false;
+                    log.error("Negative lookup filter lost the movie-info stream : {}", ex.getMessage());
+                });
+    }
+
+    @PreDestroy
+    public void close() {
+        if (this.subscriptions != null) {
+            this.subscriptions.dispose();
+        }
+    }
+
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("lookups", this.lookups.sum());
+        stats.put("rejectedByNegativeCache", this.rejectedByNegativeCache.sum());
+        stats.put("rejectedByBloomFilter", this.rejectedByBloomFilter.sum());
+        stats.put("bloomMissesChecked", this.bloomMissesChecked.sum());
+        stats.put("recordedMisses", this.recordedMisses.sum());
+        stats.put("negativeCacheSize", this.missingIds.size());
+        stats.put("knownIds", this.knownIds.insertions());
+        stats.put("knownIdsComplete", this.knownIdsComplete ? 1 : 0);
+        stats.put("bloomFilterBits", this.knownIds.bitSize());
+        stats.put("bloomFilterHashFunctions", this.knownIds.hashFunctions());
+        stats.put("expectedFalsePositiveRate", this.knownIds.expectedFalsePositiveRate());
+        return stats;
+    }
+}
@@ -0,0 +1,55 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.util.RequestCoalescer;
+import com.reactivespring.util.RetryUtil;
+import io.rsocket.exceptions.ApplicationErrorException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//RSocket alternative to MovieInfoRestClient. All calls share one persistent, multiplexed
+//connection that is opened on first use and re-established if it drops.
+@Component
+@Slf4j
+public class MovieInfoRSocketClient {
+
+    private final boolean enabled;
+    private final RSocketRequester requester;
+    private final RequestCoalescer<String, MovieInfo> movieInfoCoalescer = new RequestCoalescer<>();
+
+    public MovieInfoRSocketClient(RSocketRequester.Builder requesterBuilder,
+                                  @Value("${rsocketClient.enabled:false}") boolean enabled,
+                                  @Value("${rsocketClient.movieInfo.host:localhost}") String host,
+                                  @Value("${rsocketClient.movieInfo.port:7000}") int port) {
+        this.enabled = enabled;
+        this.requester = enabled ? requesterBuilder.tcp(host, port) : null;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    //No connection is set up while rsocketClient.enabled is false; callers are expected to check isEnabled()
+    private RSocketRequester requester() {
+        if (this.requester == null) {
+            throw new IllegalStateException("RSocket client is disabled, set rsocketClient.enabled=true to use it");
+        }
+        return this.requester;
+    }
+
+    public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
+        RSocketRequester requester = requester();
+        return this.movieInfoCoalescer.mono(movieId, () -> requester
+                .route("movie-info.by-id.{id}", movieId)
+                .retrieveMono(MovieInfo.class)
+                .switchIfEmpty(Mono.error(new MoviesInfoClientException("There is not MovieInfo for id " + movieId, 404)))
+                .onErrorMap(ApplicationErrorException.class,
+                        ex -> new MoviesInfoServerException("Server Exception in MovieInfoService -> " + ex.getMessage()))
+                .retryWhen(RetryUtil.retrySpec()));
+    }
+}
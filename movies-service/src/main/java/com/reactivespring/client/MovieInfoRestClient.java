@@ -2,32 +2,92 @@ package com.reactivespring.client;
 
 import com.reactivespring.domain.Movie;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.StreamChange;
+import com.reactivespring.exception.ConcurrencyLimitExceededException;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.metrics.RequestMetrics;
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import com.reactivespring.util.ETags;
+import com.reactivespring.util.RequestCoalescer;
 import com.reactivespring.util.RetryUtil;
+import com.reactivespring.util.SseFrames;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
 @Component
 @Slf4j
 public class MovieInfoRestClient {
 
     private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RequestMetrics requestMetrics;
+    private final RequestCoalescer<String, MovieInfo> movieInfoCoalescer = new RequestCoalescer<>();
+    private final AtomicReference<String> lastMovieInfoEventId = new AtomicReference<>();
+
+    //Markers put into the shared frames around each upstream connection; compared by identity
+    private static final byte[] CONNECTED = new byte[0];
+    private static final byte[] DISCONNECTED = new byte[0];
+
+    //One upstream SSE connection per instance, shared by every local subscriber. It reconnects with
+    //Last-Event-ID when the upstream closes or fails, and is closed when the last subscriber leaves.
+    //Events are kept as raw SSE frames: each is copied once off the wire and then shared read-only.
+    private final Flux<byte[]> sharedMovieInfoFrames = Flux.defer(this::connectMovieInfoStream)
+            .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+            .retryWhen(RetryUtil.streamReconnectSpec())
+            .doFinally(signalType -> this.lastMovieInfoEventId.set(null))
+            .publish()
+            .refCount();
 
     @Value("${restClient.movieInfoUrl}")
     private String MOVIE_INFO_URL;
 
-    public MovieInfoRestClient(WebClient webClient) {
+    @Value("${restClient.movieInfoStream.subscriberBufferSize:256}")
+    private int streamSubscriberBufferSize;
+
+    public MovieInfoRestClient(WebClient webClient, ObjectMapper objectMapper,
+                               @Qualifier("movieInfoConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+                               RequestMetrics requestMetrics) {
         this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.requestMetrics = requestMetrics;
     }
 
     public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
+        return this.movieInfoCoalescer.mono(movieId, () -> fetchMovieInfo(movieId));
+    }
 
+    //Conditional GET: true only when the movie info service answers 304 for the given etag
+    public Mono<Boolean> isMovieInfoUnchanged(String movieId, String etag) {
+        return this.webClient
+                .get()
+                .uri(MOVIE_INFO_URL + "/{id}", movieId)
+                .header(HttpHeaders.IF_NONE_MATCH, ETags.quote(etag))
+                .exchangeToMono(clientResponse -> clientResponse.releaseBody()
+                        .thenReturn(clientResponse.statusCode() == HttpStatus.NOT_MODIFIED))
+                .transform(call -> this.requestMetrics.timeClient("movie-info", "conditionalGet", call))
+                .transform(call -> this.concurrencyLimiter.wrap(call, this::isOverload, this::limitExceeded))
+                .onErrorReturn(false);
+    }
+
+    private Mono<MovieInfo> fetchMovieInfo(String movieId) {
         String url = MOVIE_INFO_URL + "/{id}";
         return this.webClient
                 .get()
@@ -49,14 +109,100 @@ public class MovieInfoRestClient {
                         clientResponse.bodyToMono(String.class)
                                 .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException("Server Exception in MovieInfoService -> " + responseMessage))))
                 .bodyToMono(MovieInfo.class)
+                .transform(call -> this.requestMetrics.timeClient("movie-info", "getById", call))
+                .transform(call -> this.concurrencyLimiter.wrap(call, this::isOverload, this::limitExceeded))
                 .retryWhen(RetryUtil.retrySpec())
                 .log();
     }
 
+    //Every attempt, retries included, takes a permit; 4xx answers say nothing about the backend's load
+    private boolean isOverload(Throwable ex) {
+        return !(ex instanceof MoviesInfoClientException);
+    }
+
+    private ConcurrencyLimitExceededException limitExceeded() {
+        return new ConcurrencyLimitExceededException("MovieInfoService concurrency limit reached");
+    }
+
+    public Flux<MovieInfo> retrieveAllMovieInfos() {
+        return this.webClient
+                .get()
+                .uri(MOVIE_INFO_URL)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(responseMessage -> Mono.error(new MoviesInfoClientException(
+                                        responseMessage, clientResponse.statusCode().value()
+                                ))))
+                .onStatus(HttpStatus::is5xxServerError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException("Server Exception in MovieInfoService -> " + responseMessage))))
+                .bodyToFlux(MovieInfo.class)
+                .transform(call -> this.requestMetrics.timeClient("movie-info", "getAll", call))
+                .retryWhen(RetryUtil.retrySpec());
+    }
+
+    //Frames of saved MovieInfos only, as retrieveMovieInfoStream emits them; delete events are left out
+    public Flux<byte[]> retrieveMovieInfoStreamFrames() {
+        return bufferedMovieInfoFrames()
+                .filter(frame -> frame != CONNECTED && frame != DISCONNECTED
+                        && !"delete".equals(SseFrames.eventType(frame)));
+    }
+
+    //Saved MovieInfos only
     public Flux<MovieInfo> retrieveMovieInfoStream() {
+        return retrieveMovieInfoChanges()
+                .filter(change -> change.getType() == StreamChange.Type.SAVED)
+                .map(StreamChange::getValue);
+    }
+
+    //Saves, deletes (a MovieInfo carrying only the id) and the connection markers of the shared stream
+    public Flux<StreamChange<MovieInfo>> retrieveMovieInfoChanges() {
+        return bufferedMovieInfoFrames()
+                .handle((frame, sink) -> {
+                    if (frame == CONNECTED) {
+                        sink.next(StreamChange.connected());
+                    } else if (frame == DISCONNECTED) {
+                        sink.next(StreamChange.disconnected());
+                    } else {
+                        String data = SseFrames.data(frame);
+                        if (data != null) {
+                            StreamChange.Type type = "delete".equals(SseFrames.eventType(frame))
+                                    ? StreamChange.Type.DELETED
+                                    : StreamChange.Type.SAVED;
+                            sink.next(new StreamChange<>(type, readMovieInfo(data)));
+                        }
+                    }
+                });
+    }
+
+    private Flux<byte[]> bufferedMovieInfoFrames() {
+        return this.sharedMovieInfoFrames
+                .onBackpressureBuffer(this.streamSubscriberBufferSize,
+                        dropped -> log.warn("Slow stream subscriber, dropping MovieInfo event {}", SseFrames.eventId(dropped)),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    private MovieInfo readMovieInfo(String data) {
+        try {
+            return this.objectMapper.readValue(data, MovieInfo.class);
+        } catch (JsonProcessingException ex) {
+            throw new MoviesInfoServerException("Invalid MovieInfo event in MovieInfoService stream -> " + ex.getMessage());
+        }
+    }
+
+    private Flux<byte[]> connectMovieInfoStream() {
+        String lastEventId = this.lastMovieInfoEventId.get();
+        SseFrames sseFrames = new SseFrames();
         return this.webClient
                 .get()
                 .uri(this.MOVIE_INFO_URL + "/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> {
+                    if (lastEventId != null) {
+                        headers.set("Last-Event-ID", lastEventId);
+                    }
+                })
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                    return clientResponse.bodyToMono(String.class)
@@ -67,8 +213,19 @@ public class MovieInfoRestClient {
                 .onStatus(HttpStatus::is5xxServerError, clientResponse ->
                         clientResponse.bodyToMono(String.class)
                                 .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException("Server Exception in MovieInfoService -> " + responseMessage))))
-                .bodyToFlux(MovieInfo.class)
-                .retryWhen(RetryUtil.retrySpec())
-                .log();
+                .bodyToFlux(DataBuffer.class)
+                .concatMapIterable(sseFrames::split)
+                //The first frame, heartbeat or event, is the first sign the upstream is really streaming
+                .switchOnFirst((first, frames) -> first.hasValue() ? frames.startWith(CONNECTED) : frames)
+                .doOnNext(frame -> {
+                    String eventId = SseFrames.eventId(frame);
+                    if (eventId != null) {
+                        this.lastMovieInfoEventId.set(eventId);
+                    }
+                })
+                //Heartbeats and retry hints belong to this hop; our own subscribers get their own
+                .filter(frame -> frame == CONNECTED || SseFrames.hasData(frame))
+                .concatWith(Mono.just(DISCONNECTED))
+                .onErrorResume(ex -> Mono.just(DISCONNECTED).concatWith(Mono.error(ex)));
     }
 }
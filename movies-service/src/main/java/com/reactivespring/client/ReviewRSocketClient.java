@@ -0,0 +1,52 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.util.RequestCoalescer;
+import com.reactivespring.util.RetryUtil;
+import io.rsocket.exceptions.ApplicationErrorException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+//RSocket alternative to ReviewRestClient, over one persistent multiplexed connection.
+@Component
+@Slf4j
+public class ReviewRSocketClient {
+
+    private final boolean enabled;
+    private final RSocketRequester requester;
+    private final RequestCoalescer<String, Review> reviewsCoalescer = new RequestCoalescer<>();
+
+    public ReviewRSocketClient(RSocketRequester.Builder requesterBuilder,
+                               @Value("${rsocketClient.enabled:false}") boolean enabled,
+                               @Value("${rsocketClient.review.host:localhost}") String host,
+                               @Value("${rsocketClient.review.port:7001}") int port) {
+        this.enabled = enabled;
+        this.requester = enabled ? requesterBuilder.tcp(host, port) : null;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    //No connection is set up while rsocketClient.enabled is false; callers are expected to check isEnabled()
+    private RSocketRequester requester() {
+        if (this.requester == null) {
+            throw new IllegalStateException("RSocket client is disabled, set rsocketClient.enabled=true to use it");
+        }
+        return this.requester;
+    }
+
+    public Flux<Review> retrieveReviews(String movieInfoId) {
+        RSocketRequester requester = requester();
+        return this.reviewsCoalescer.flux(movieInfoId, () -> requester
+                .route("reviews.by-movie-info.{movieInfoId}", movieInfoId)
+                .retrieveFlux(Review.class)
+                .onErrorMap(ApplicationErrorException.class,
+                        ex -> new ReviewsServerException("Server Exception in ReviewsService " + ex.getMessage()))
+                .retryWhen(RetryUtil.retrySpec()));
+    }
+}
@@ -1,41 +1,115 @@
 package com.reactivespring.client;
 
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.StreamChange;
+import com.reactivespring.exception.ConcurrencyLimitExceededException;
 import com.reactivespring.exception.ReviewsClientException;
 import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.metrics.RequestMetrics;
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import com.reactivespring.util.ETags;
+import com.reactivespring.util.RequestCoalescer;
 import com.reactivespring.util.RetryUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+
 @Component
 @Slf4j
 public class ReviewRestClient {
 
     private final WebClient webClient;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RequestMetrics requestMetrics;
+    private final RequestCoalescer<String, Review> reviewsCoalescer = new RequestCoalescer<>();
+
+    //Shared by every local subscriber and reconnected when the review service closes or fails.
+    private final Flux<StreamChange<Review>> sharedReviewChanges = Flux.defer(this::connectReviewStream)
+            .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+            .retryWhen(RetryUtil.streamReconnectSpec())
+            .publish()
+            .refCount();
 
     @Value("${restClient.reviewUrl}")
     private String REVIEW_URL;
 
-    public ReviewRestClient(WebClient webClient) {
+    public ReviewRestClient(WebClient webClient,
+                            @Qualifier("reviewConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+                            RequestMetrics requestMetrics) {
         this.webClient = webClient;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.requestMetrics = requestMetrics;
     }
 
     public Flux<Review> retrieveReviews(String movieInfoId) {
+        return retrieveReviews(movieInfoId, null, null);
+    }
+
+    public Flux<Review> retrieveReviews(String movieInfoId, Integer limit, String sort) {
+        String key = movieInfoId + "|" + limit + "|" + sort;
+        return this.reviewsCoalescer.flux(key, () -> fetchReviews(movieInfoId, limit, sort, null));
+    }
+
+    //Asks for application/x-ndjson, so each review is decoded and passed on as its line arrives
+    //instead of after the whole array has been read
+    public Flux<Review> streamReviews(String movieInfoId, Integer limit, String sort) {
+        String key = "ndjson|" + movieInfoId + "|" + limit + "|" + sort;
+        return this.reviewsCoalescer.flux(key, () -> fetchReviews(movieInfoId, limit, sort, MediaType.APPLICATION_NDJSON));
+    }
+
+    //Conditional GET: true only when the review service answers 304 for the given etag
+    public Mono<Boolean> isReviewsUnchanged(String movieInfoId, String etag) {
         String uri = UriComponentsBuilder
                 .fromHttpUrl(REVIEW_URL)
                 .queryParam("movieInfoId", movieInfoId)
                 .buildAndExpand()
                 .toUriString();
+        return this.webClient
+                .get()
+                .uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, ETags.quote(etag))
+                .exchangeToMono(clientResponse -> clientResponse.releaseBody()
+                        .thenReturn(clientResponse.statusCode() == HttpStatus.NOT_MODIFIED))
+                .transform(call -> this.requestMetrics.timeClient("review", "conditionalGet", call))
+                .transform(call -> this.concurrencyLimiter.wrap(call, this::isOverload, this::limitExceeded))
+                .onErrorReturn(false);
+    }
+
+    private Flux<Review> fetchReviews(String movieInfoId, Integer limit, String sort, MediaType accept) {
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder
+                .fromHttpUrl(REVIEW_URL)
+                .queryParam("movieInfoId", movieInfoId);
+        if (limit != null) {
+            uriBuilder.queryParam("limit", limit);
+        }
+        if (sort != null) {
+            uriBuilder.queryParam("sort", sort);
+        }
+        String uri = uriBuilder
+                .buildAndExpand()
+                .toUriString();
 
         return this.webClient
                 .get()
                 .uri(uri)
+                .headers(headers -> {
+                    if (accept != null) {
+                        headers.setAccept(List.of(accept));
+                    }
+                })
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                     if(clientResponse.statusCode().equals(HttpStatus.NOT_FOUND)){
@@ -52,7 +126,76 @@ public class ReviewRestClient {
                                     "Server Exception in ReviewsService " + responseMessage)));
                 })
                 .bodyToFlux(Review.class)
+                .transform(call -> this.requestMetrics.timeClient("review", "getByMovieInfoId", call))
+                .transform(call -> this.concurrencyLimiter.wrap(call, this::isOverload, this::limitExceeded))
                 .retryWhen(RetryUtil.retrySpec())
                 .log();
     }
+
+    private boolean isOverload(Throwable ex) {
+        return !(ex instanceof ReviewsClientException);
+    }
+
+    private ConcurrencyLimitExceededException limitExceeded() {
+        return new ConcurrencyLimitExceededException("ReviewsService concurrency limit reached");
+    }
+
+    public Flux<Review> retrieveAllReviews() {
+        return this.webClient
+                .get()
+                .uri(REVIEW_URL)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(responseMessage -> Mono.error(new ReviewsClientException(responseMessage))))
+                .onStatus(HttpStatus::is5xxServerError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(responseMessage -> Mono.error(new ReviewsServerException(
+                                        "Server Exception in ReviewsService " + responseMessage))))
+                .bodyToFlux(Review.class)
+                .transform(call -> this.requestMetrics.timeClient("review", "getAll", call))
+                .retryWhen(RetryUtil.retrySpec());
+    }
+
+    //Saved reviews only
+    public Flux<Review> retrieveReviewStream() {
+        return this.sharedReviewChanges
+                .filter(change -> change.getType() == StreamChange.Type.SAVED)
+                .map(StreamChange::getValue);
+    }
+
+    //Saves, deletes and the connection markers of the shared stream
+    public Flux<StreamChange<Review>> retrieveReviewChanges() {
+        return this.sharedReviewChanges;
+    }
+
+    private Flux<StreamChange<Review>> connectReviewStream() {
+        return this.webClient
+                .get()
+                .uri(REVIEW_URL + "/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(responseMessage -> Mono.error(new ReviewsClientException(responseMessage))))
+                .onStatus(HttpStatus::is5xxServerError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(responseMessage -> Mono.error(new ReviewsServerException(
+                                        "Server Exception in ReviewsService " + responseMessage))))
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<Review>>() {
+                })
+                //The first event, heartbeat or not, is the first sign the upstream is really streaming
+                .switchOnFirst((first, events) -> {
+                    Flux<StreamChange<Review>> changes = events
+                            .filter(event -> event.data() != null)
+                            .map(ReviewRestClient::toChange);
+                    return first.hasValue() ? changes.startWith(StreamChange.<Review>connected()) : changes;
+                })
+                .concatWith(Mono.just(StreamChange.disconnected()))
+                .onErrorResume(ex -> Mono.just(StreamChange.<Review>disconnected()).concatWith(Mono.error(ex)));
+    }
+
+    private static StreamChange<Review> toChange(ServerSentEvent<Review> event) {
+        return new StreamChange<>("delete".equals(event.event()) ? StreamChange.Type.DELETED : StreamChange.Type.SAVED, event.data());
+    }
 }
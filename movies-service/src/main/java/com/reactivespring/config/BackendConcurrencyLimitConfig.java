@@ -0,0 +1,34 @@
+package com.reactivespring.config;
+
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+//One limiter per backend next to the inbound one, so a slow review service sheds review calls
+//without starving movie info calls.
+@Configuration
+public class BackendConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter movieInfoConcurrencyLimiter(@Value("${concurrencyLimit.enabled:true}") boolean enabled,
+                                                                  @Value("${concurrencyLimit.movieInfo.initialLimit:50}") int initialLimit,
+                                                                  @Value("${concurrencyLimit.movieInfo.minLimit:5}") int minLimit,
+                                                                  @Value("${concurrencyLimit.movieInfo.maxLimit:500}") int maxLimit,
+                                                                  @Value("${concurrencyLimit.movieInfo.maxLatency:500ms}") Duration maxLatency,
+                                                                  @Value("${concurrencyLimit.backoffRatio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter("movieInfo", enabled, initialLimit, minLimit, maxLimit, maxLatency.toMillis(), backoffRatio);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter reviewConcurrencyLimiter(@Value("${concurrencyLimit.enabled:true}") boolean enabled,
+                                                               @Value("${concurrencyLimit.review.initialLimit:50}") int initialLimit,
+                                                               @Value("${concurrencyLimit.review.minLimit:5}") int minLimit,
+                                                               @Value("${concurrencyLimit.review.maxLimit:500}") int maxLimit,
+                                                               @Value("${concurrencyLimit.review.maxLatency:500ms}") Duration maxLatency,
+                                                               @Value("${concurrencyLimit.backoffRatio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter("review", enabled, initialLimit, minLimit, maxLimit, maxLatency.toMillis(), backoffRatio);
+    }
+}
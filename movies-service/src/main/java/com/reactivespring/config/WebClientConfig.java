@@ -1,14 +1,33 @@
 package com.reactivespring.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class WebClientConfig {
 
+    //Service-to-service calls ask for Smile first and fall back to JSON. Stream calls set their own Accept.
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClient webClient(WebClient.Builder builder, Jackson2ObjectMapperBuilder objectMapperBuilder,
+                               @Value("${restClient.accept:application/x-jackson-smile,application/json}") String accept) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        return builder
+                .codecs(configurer -> {
+                    configurer.customCodecs().register(new Jackson2SmileEncoder(smileMapper, CodecConfig.SMILE));
+                    configurer.customCodecs().register(new Jackson2SmileDecoder(smileMapper, CodecConfig.SMILE));
+                })
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.parseMediaTypes(accept).stream()
+                        .map(MediaType::toString)
+                        .toArray(String[]::new))
+                .build();
     }
 }
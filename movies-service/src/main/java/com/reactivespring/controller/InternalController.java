@@ -0,0 +1,70 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.cache.NegativeLookupFilter;
+import com.reactivespring.filter.SseKeepAliveFilter;
+import com.reactivespring.metrics.PrometheusText;
+import com.reactivespring.metrics.RequestMetrics;
+import com.reactivespring.tracing.Tracer;
+import com.reactivespring.util.AdaptiveConcurrencyLimiter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal")
+public class InternalController {
+
+    private final NegativeLookupFilter negativeLookupFilter;
+    private final List<AdaptiveConcurrencyLimiter> concurrencyLimiters;
+    private final RequestMetrics requestMetrics;
+    private final Tracer tracer;
+    private final SseKeepAliveFilter sseKeepAliveFilter;
+
+    public InternalController(NegativeLookupFilter negativeLookupFilter, List<AdaptiveConcurrencyLimiter> concurrencyLimiters,
+                              RequestMetrics requestMetrics, Tracer tracer, SseKeepAliveFilter sseKeepAliveFilter) {
+        this.negativeLookupFilter = negativeLookupFilter;
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.requestMetrics = requestMetrics;
+        this.tracer = tracer;
+        this.sseKeepAliveFilter = sseKeepAliveFilter;
+    }
+
+    @GetMapping("/negative-lookup")
+    public Map<String, Number> negativeLookup() {
+        return this.negativeLookupFilter.stats();
+    }
+
+    @GetMapping("/concurrency")
+    public Map<String, Map<String, Number>> concurrency() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        this.concurrencyLimiters.forEach(limiter -> stats.put(limiter.getName(), limiter.stats()));
+        return stats;
+    }
+
+    @GetMapping("/tracing")
+    public Map<String, Number> tracing() {
+        return this.tracer.stats();
+    }
+
+    //Heartbeat and idle reclamation counters of the SSE connections
+    @GetMapping("/sse")
+    public Map<String, Number> sse() {
+        return this.sseKeepAliveFilter.stats();
+    }
+
+    //Prometheus text format
+    @GetMapping(value = "/metrics", produces = PrometheusText.CONTENT_TYPE)
+    public String metrics() {
+        PrometheusText text = new PrometheusText();
+        this.requestMetrics.writeTo(text);
+        return text
+                .gauges("concurrency_limiter", "limiter", concurrency(), "Adaptive concurrency limiter statistics")
+                .gauges("tracing", "service", Map.of("local", this.tracer.stats()), "Tail sampling and span export statistics")
+                .gauges("sse_connection", "service", Map.of("local", this.sseKeepAliveFilter.stats()), "SSE heartbeat and idle reclamation statistics")
+                .toString();
+    }
+}
@@ -3,11 +3,20 @@ package com.reactivespring.controller;
 import com.reactivespring.client.MovieInfoRestClient;
 import com.reactivespring.client.ReviewRestClient;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieChunk;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.service.MovieService;
+import com.reactivespring.util.MovieETags;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,22 +27,55 @@ public class MovieController {
 
     private final MovieInfoRestClient movieInfoRestClient;
     private final ReviewRestClient reviewRestClient;
+    private final MovieService movieService;
 
-    public MovieController(MovieInfoRestClient movieInfoRestClient, ReviewRestClient reviewRestClient) {
+    public MovieController(MovieInfoRestClient movieInfoRestClient, ReviewRestClient reviewRestClient, MovieService movieService) {
         this.movieInfoRestClient = movieInfoRestClient;
         this.reviewRestClient = reviewRestClient;
+        this.movieService = movieService;
     }
 
+    //The ETag is "<movieInfo>-<reviews>"; a conditional request is answered with 304 when both
+    //backends report their part unchanged, without fetching either body.
     @GetMapping("/{id}")
-    public Mono<Movie> retrieveMovieById(@PathVariable String id) {
+    public Mono<ResponseEntity<Movie>> retrieveMovieById(@PathVariable String id,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<Movie>> fullResponse = Mono.defer(() -> this.movieService.retrieveMovieById(id)
+                .map(movie -> ResponseEntity.ok().eTag(MovieETags.of(movie)).body(movie)));
+        if (ifNoneMatch == null) {
+            return fullResponse;
+        }
+        return this.movieService.findUnchangedEtag(id, ifNoneMatch)
+                .map(etag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Movie>build())
+                .switchIfEmpty(fullResponse);
+    }
+
+    //Streaming variant: the MovieInfo header goes out first and reviews follow as they arrive,
+    //one NDJSON line each, instead of buffering the whole review list.
+    @GetMapping(value = "/{id}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieChunk> streamMovieById(@PathVariable String id,
+                                            @RequestParam(value = "reviewLimit", required = false) Integer reviewLimit,
+                                            @RequestParam(value = "sort", required = false) String sort) {
         return this.movieInfoRestClient.retrieveMovieInfo(id)
-                .flatMap(movieInfo -> this.reviewRestClient.retrieveReviews(movieInfo.getMovieInfoId())
-                        .collectList()
-                        .map(reviewsList -> new Movie(movieInfo, reviewsList)));
+                .flatMapMany(movieInfo -> Flux.concat(
+                        Mono.just(MovieChunk.header(movieInfo)),
+                        this.reviewRestClient.streamReviews(movieInfo.getMovieInfoId(), reviewLimit, sort)
+                                .map(MovieChunk::review)));
+    }
+
+    //Pass-through: upstream SSE frames of saved MovieInfos are relayed as-is, without a Jackson round trip.
+    //Deletes are left out on both paths.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE, params = "!year")
+    public Mono<Void> relayMovieInfoStream(ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+        return response.writeAndFlushWith(this.movieInfoRestClient.retrieveMovieInfoStreamFrames()
+                .map(frame -> Mono.just(response.bufferFactory().wrap(frame))));
     }
 
-    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<MovieInfo> retrieveMovieInfoStream() {
-        return this.movieInfoRestClient.retrieveMovieInfoStream();
+    //Filtering needs the decoded MovieInfo, so it falls back to the decoded path.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE, params = "year")
+    public Flux<MovieInfo> retrieveMovieInfoStream(@RequestParam("year") Integer year) {
+        return this.movieInfoRestClient.retrieveMovieInfoStream()
+                .filter(movieInfo -> year.equals(movieInfo.getYear()));
     }
 }
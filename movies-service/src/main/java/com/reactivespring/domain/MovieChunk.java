@@ -0,0 +1,25 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//One line of the streamed Movie response: the MovieInfo header first, then one line per review.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieChunk {
+
+    private MovieInfo movieInfo;
+    private Review review;
+
+    public static MovieChunk header(MovieInfo movieInfo) {
+        return new MovieChunk(movieInfo, null);
+    }
+
+    public static MovieChunk review(Review review) {
+        return new MovieChunk(null, review);
+    }
+}
@@ -0,0 +1,31 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//One signal off the shared movie-info or review change stream. CONNECTED and DISCONNECTED bracket each
+//upstream connection: events can be missed between a DISCONNECTED and the next CONNECTED, so state built
+//from the stream has to be treated as unconfirmed across that gap.
+@Data
+@AllArgsConstructor
+public class StreamChange<T> {
+
+    public enum Type {
+        CONNECTED, DISCONNECTED, SAVED, DELETED
+    }
+
+    private final Type type;
+    private final T value;
+
+    public static <T> StreamChange<T> connected() {
+        return new StreamChange<>(Type.CONNECTED, null);
+    }
+
+    public static <T> StreamChange<T> disconnected() {
+        return new StreamChange<>(Type.DISCONNECTED, null);
+    }
+
+    public boolean isChange() {
+        return this.type == Type.SAVED || this.type == Type.DELETED;
+    }
+}
@@ -0,0 +1,10 @@
+package com.reactivespring.exception;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    private String message;
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+        this.message = message;
+    }
+}
@@ -1,23 +1,37 @@
 package com.reactivespring.exception;
 
+import com.reactivespring.filter.RequestMetricsFilter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
 
 @ControllerAdvice
 @Slf4j
 public class GlobalErrorHandler {
 
     @ExceptionHandler(MoviesInfoClientException.class)
-    public ResponseEntity<String> handleClientException(MoviesInfoClientException exception) {
+    public ResponseEntity<String> handleClientException(MoviesInfoClientException exception, ServerWebExchange exchange) {
+        exchange.getAttributes().put(RequestMetricsFilter.HANDLED_EXCEPTION_ATTRIBUTE, exception);
         log.error("Exception Caught in handleClientException : {}", exception.getMessage());
         return ResponseEntity.status(exception.getStatusCode()).body(exception.getMessage());
     }
 
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<String> handleConcurrencyLimitExceededException(ConcurrencyLimitExceededException exception, ServerWebExchange exchange) {
+        exchange.getAttributes().put(RequestMetricsFilter.HANDLED_EXCEPTION_ATTRIBUTE, exception);
+        log.warn("Exception Caught in handleConcurrencyLimitExceededException : {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(exception.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<String> handleRunTimeException(RuntimeException exception) {
+    public ResponseEntity<String> handleRunTimeException(RuntimeException exception, ServerWebExchange exchange) {
+        exchange.getAttributes().put(RequestMetricsFilter.HANDLED_EXCEPTION_ATTRIBUTE, exception);
         log.error("Exception Caught in handleRunTimeException : {}", exception.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
     }
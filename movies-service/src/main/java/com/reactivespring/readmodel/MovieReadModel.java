@@ -0,0 +1,261 @@
+package com.reactivespring.readmodel;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.StreamChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Local materialized view of Movie aggregates, seeded by bulk reads and kept current from the
+//movie-info and review change streams. An entry is only served once the view has been seeded and
+//while it is known to be fresh: either both streams have stayed connected since it was last confirmed
+//(seed, stream event or fan-out refresh), so any change to it would have reached us, or it was
+//confirmed within maxAge. Anything else falls back to the fan-out path. Every write stamps its view with a
+//new version, so a fan-out result is only written back if the movie did not change while it was loading.
+@Component
+@Slf4j
+public class MovieReadModel {
+
+    private final boolean enabled;
+    private final long maxAgeNanos;
+    private final Map<String, MovieView> views = new ConcurrentHashMap<>();
+    //Entities the streams changed since the bulk seed started; the seed's older copies must not win
+    private final Set<String> changedDuringSeed = ConcurrentHashMap.newKeySet();
+    //Bumped when either stream drops or reconnects after a drop, which retires every earlier stream
+    //confirmation. The very first connect does not bump it, so the seed that raced it stays confirmed.
+    private final AtomicLong streamEpoch = new AtomicLong();
+    private final AtomicLong lastVersion = new AtomicLong();
+    //Version of the latest removed view; a removal leaves nothing behind to compare a load against
+    private final AtomicLong lastRemovedVersion = new AtomicLong();
+    private volatile boolean movieInfoStreamConnected;
+    private volatile boolean reviewStreamConnected;
+    private volatile boolean seeded;
+    private volatile Disposable subscriptions;
+
+    public MovieReadModel(@Value("${movieReadModel.enabled:false}") boolean enabled,
+                          @Value("${movieReadModel.maxAge:5m}") Duration maxAge) {
+        this.enabled = enabled;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public boolean isSeeded() {
+        return this.seeded;
+    }
+
+    public int size() {
+        return this.views.size();
+    }
+
+    public Optional<Movie> find(String movieInfoId) {
+        if (!this.enabled || !this.seeded) {
+            return Optional.empty();
+        }
+        MovieView view = this.views.get(movieInfoId);
+        if (view == null || view.movieInfo == null || !isFresh(view)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Movie(view.movieInfo, view.reviews));
+    }
+
+    private boolean isFresh(MovieView view) {
+        boolean streamed = this.movieInfoStreamConnected && this.reviewStreamConnected
+                && view.epoch == this.streamEpoch.get();
+        return streamed || System.nanoTime() - view.confirmedAt <= this.maxAgeNanos;
+    }
+
+    public void start(Flux<StreamChange<MovieInfo>> movieInfoChanges, Flux<StreamChange<Review>> reviewChanges,
+                      Flux<MovieInfo> allMovieInfos, Flux<Review> allReviews) {
+        if (!this.enabled || this.subscriptions != null) {
+            return;
+        }
+
+        //Changes are applied from the start, so nothing is lost while the bulk seed runs.
+        this.subscriptions = Flux.merge(
+                        movieInfoChanges.doOnNext(this::applyMovieInfoChange).then(),
+                        reviewChanges.doOnNext(this::applyReviewChange).then(),
+                        Flux.concat(allMovieInfos.doOnNext(this::seed).then(),
+                                        allReviews.doOnNext(this::seed).then())
+                                .doOnComplete(() -> {
+                                    this.seeded = true;
+                                    this.changedDuringSeed.clear();
+                                    log.info("Movie read model seeded with {} movies", this.views.size());
+                                }))
+                .subscribe(null, ex -> {
+                    this.seeded = false;
+                    log.error("Movie read model stopped, falling back to fan-out : {}", ex.getMessage());
+                });
+    }
+
+    @PreDestroy
+    public void close() {
+        if (this.subscriptions != null) {
+            this.subscriptions.dispose();
+        }
+    }
+
+    //Taken before a fan-out load starts and handed back to put
+    public long currentVersion() {
+        return this.lastVersion.get();
+    }
+
+    //Anything written for the movie after the load started, or a removal that may have been of it,
+    //makes the loaded movie stale
+    public void put(Movie movie, long startVersion) {
+        if (!this.enabled || movie.getMovieInfo() == null) {
+            return;
+        }
+        List<Review> reviews = movie.getReviewList() == null ? List.of() : List.copyOf(movie.getReviewList());
+        this.views.compute(movie.getMovieInfo().getMovieInfoId(), (id, view) -> {
+            boolean unchanged = view == null
+                    ? this.lastRemovedVersion.get() <= startVersion
+                    : view.version <= startVersion;
+            if (!unchanged) {
+                log.debug("Dropping Movie {} loaded before a newer change", id);
+                return view;
+            }
+            return newView(movie.getMovieInfo(), reviews);
+        });
+    }
+
+    void applyMovieInfoChange(StreamChange<MovieInfo> change) {
+        switch (change.getType()) {
+            case CONNECTED:
+            case DISCONNECTED:
+                this.movieInfoStreamConnected = change.getType() == StreamChange.Type.CONNECTED;
+                retireStreamConfirmations(change.getType());
+                break;
+            case SAVED:
+                if (!this.seeded) {
+                    this.changedDuringSeed.add(movieInfoKey(change.getValue()));
+                }
+                apply(change.getValue());
+                break;
+            case DELETED:
+                if (!this.seeded) {
+                    this.changedDuringSeed.add(movieInfoKey(change.getValue()));
+                }
+                this.views.compute(change.getValue().getMovieInfoId(), (id, view) -> {
+                    this.lastRemovedVersion.set(this.lastVersion.incrementAndGet());
+                    return null;
+                });
+                break;
+        }
+    }
+
+    void applyReviewChange(StreamChange<Review> change) {
+        switch (change.getType()) {
+            case CONNECTED:
+            case DISCONNECTED:
+                this.reviewStreamConnected = change.getType() == StreamChange.Type.CONNECTED;
+                retireStreamConfirmations(change.getType());
+                break;
+            case SAVED:
+                if (!this.seeded) {
+                    this.changedDuringSeed.add(reviewKey(change.getValue()));
+                }
+                apply(change.getValue());
+                break;
+            case DELETED:
+                if (!this.seeded) {
+                    this.changedDuringSeed.add(reviewKey(change.getValue()));
+                }
+                remove(change.getValue());
+                break;
+        }
+    }
+
+    private void retireStreamConfirmations(StreamChange.Type type) {
+        if (type == StreamChange.Type.DISCONNECTED || this.streamEpoch.get() > 0) {
+            this.streamEpoch.incrementAndGet();
+        }
+    }
+
+    //The check runs inside compute: a stream change marks its key before computing the same entry,
+    //so either the seed sees the mark or the stream's write lands after the seed's
+    private void seed(MovieInfo movieInfo) {
+        this.views.compute(movieInfo.getMovieInfoId(), (id, view) -> this.changedDuringSeed.contains(movieInfoKey(movieInfo))
+                ? view
+                : newView(movieInfo, view == null ? List.of() : view.reviews));
+    }
+
+    private void seed(Review review) {
+        this.views.compute(String.valueOf(review.getMovieInfoId()), (id, view) -> this.changedDuringSeed.contains(reviewKey(review))
+                ? view
+                : withReview(view, review));
+    }
+
+    void apply(MovieInfo movieInfo) {
+        this.views.compute(movieInfo.getMovieInfoId(), (id, view) -> newView(
+                movieInfo, view == null ? List.of() : view.reviews));
+    }
+
+    void apply(Review review) {
+        this.views.compute(String.valueOf(review.getMovieInfoId()), (id, view) -> withReview(view, review));
+    }
+
+    private void remove(Review review) {
+        this.views.computeIfPresent(String.valueOf(review.getMovieInfoId()), (id, view) -> {
+            List<Review> reviews = new ArrayList<>(view.reviews);
+            reviews.removeIf(existing -> sameReview(existing, review));
+            return newView(view.movieInfo, Collections.unmodifiableList(reviews));
+        });
+    }
+
+    private MovieView withReview(MovieView view, Review review) {
+        List<Review> reviews = new ArrayList<>(view == null ? List.of() : view.reviews);
+        reviews.removeIf(existing -> sameReview(existing, review));
+        reviews.add(review);
+        return newView(view == null ? null : view.movieInfo, Collections.unmodifiableList(reviews));
+    }
+
+    private MovieView newView(MovieInfo movieInfo, List<Review> reviews) {
+        return new MovieView(movieInfo, reviews, System.nanoTime(), this.streamEpoch.get(), this.lastVersion.incrementAndGet());
+    }
+
+    private static boolean sameReview(Review existing, Review review) {
+        return existing.getReviewId() != null && existing.getReviewId().equals(review.getReviewId());
+    }
+
+    private static String movieInfoKey(MovieInfo movieInfo) {
+        return "movieInfo:" + movieInfo.getMovieInfoId();
+    }
+
+    private static String reviewKey(Review review) {
+        return "review:" + review.getReviewId();
+    }
+
+    private static class MovieView {
+        private final MovieInfo movieInfo;
+        private final List<Review> reviews;
+        private final long confirmedAt;
+        private final long epoch;
+        private final long version;
+
+        private MovieView(MovieInfo movieInfo, List<Review> reviews, long confirmedAt, long epoch, long version) {
+            this.movieInfo = movieInfo;
+            this.reviews = reviews;
+            this.confirmedAt = confirmedAt;
+            this.epoch = epoch;
+            this.version = version;
+        }
+    }
+}
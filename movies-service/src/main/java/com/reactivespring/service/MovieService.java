@@ -0,0 +1,127 @@
+package com.reactivespring.service;
+
+import com.reactivespring.cache.MovieCache;
+import com.reactivespring.cache.NegativeLookupFilter;
+import com.reactivespring.client.MovieInfoRSocketClient;
+import com.reactivespring.client.MovieInfoRestClient;
+import com.reactivespring.client.ReviewRSocketClient;
+import com.reactivespring.client.ReviewRestClient;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.StreamChange;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.readmodel.MovieReadModel;
+import com.reactivespring.util.ETags;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class MovieService {
+
+    private final MovieInfoRestClient movieInfoRestClient;
+    private final ReviewRestClient reviewRestClient;
+    private final MovieInfoRSocketClient movieInfoRSocketClient;
+    private final ReviewRSocketClient reviewRSocketClient;
+    private final MovieCache movieCache;
+    private final MovieReadModel movieReadModel;
+    private final NegativeLookupFilter negativeLookupFilter;
+
+    public MovieService(MovieInfoRestClient movieInfoRestClient, ReviewRestClient reviewRestClient,
+                        MovieInfoRSocketClient movieInfoRSocketClient, ReviewRSocketClient reviewRSocketClient,
+                        MovieCache movieCache, MovieReadModel movieReadModel, NegativeLookupFilter negativeLookupFilter) {
+        this.movieInfoRestClient = movieInfoRestClient;
+        this.reviewRestClient = reviewRestClient;
+        this.movieInfoRSocketClient = movieInfoRSocketClient;
+        this.reviewRSocketClient = reviewRSocketClient;
+        this.movieCache = movieCache;
+        this.movieReadModel = movieReadModel;
+        this.negativeLookupFilter = negativeLookupFilter;
+    }
+
+    public Mono<Movie> retrieveMovieById(String id) {
+        if (!this.negativeLookupFilter.mightExist(id)) {
+            return Mono.error(new MoviesInfoClientException("There is not MovieInfo for id " + id, 404));
+        }
+
+        return this.movieReadModel.find(id)
+                .map(Mono::just)
+                .orElseGet(() -> this.movieCache.get(id, () -> Mono.defer(() -> {
+                    long startVersion = this.movieReadModel.currentVersion();
+                    return fetchMovie(id).doOnNext(movie -> this.movieReadModel.put(movie, startVersion));
+                })));
+    }
+
+    //Resolves If-None-Match against the composite "<movieInfo>-<reviews>" tag by asking each backend
+    //whether its part changed; emits the tag only when both answer 304.
+    public Mono<String> findUnchangedEtag(String id, String ifNoneMatch) {
+        if (!this.negativeLookupFilter.mightExist(id)) {
+            return Mono.empty();
+        }
+        return ETags.candidates(ifNoneMatch).stream()
+                .map(candidate -> candidate.split("-"))
+                .filter(parts -> parts.length == 2)
+                .findFirst()
+                .map(parts -> Mono.zip(
+                                this.movieInfoRestClient.isMovieInfoUnchanged(id, parts[0]),
+                                this.reviewRestClient.isReviewsUnchanged(id, parts[1]))
+                        .filter(unchanged -> unchanged.getT1() && unchanged.getT2())
+                        .map(unchanged -> parts[0] + "-" + parts[1]))
+                .orElse(Mono.empty());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToChangeStreams() {
+        if (this.movieCache.isEnabled()) {
+            this.movieCache.subscribeToInvalidations(Flux.merge(
+                    this.movieInfoRestClient.retrieveMovieInfoChanges()
+                            .filter(StreamChange::isChange)
+                            .map(change -> change.getValue().getMovieInfoId()),
+                    this.reviewRestClient.retrieveReviewChanges()
+                            .filter(StreamChange::isChange)
+                            .map(change -> String.valueOf(change.getValue().getMovieInfoId()))));
+        }
+
+        if (this.movieReadModel.isEnabled()) {
+            this.movieReadModel.start(
+                    this.movieInfoRestClient.retrieveMovieInfoChanges(),
+                    this.reviewRestClient.retrieveReviewChanges(),
+                    this.movieInfoRestClient.retrieveAllMovieInfos(),
+                    this.reviewRestClient.retrieveAllReviews());
+        }
+
+        if (this.negativeLookupFilter.isEnabled()) {
+            this.negativeLookupFilter.start(
+                    this.movieInfoRestClient.retrieveMovieInfoChanges(),
+                    this.movieInfoRestClient.retrieveAllMovieInfos());
+        }
+    }
+
+    private Mono<Movie> fetchMovie(String id) {
+        return retrieveMovieInfo(id)
+                .flatMap(movieInfo -> retrieveReviews(movieInfo.getMovieInfoId())
+                        .collectList()
+                        .map(reviewsList -> new Movie(movieInfo, reviewsList)))
+                .doOnNext(movie -> this.negativeLookupFilter.recordKnown(id))
+                .doOnError(MoviesInfoClientException.class, ex -> {
+                    if (ex.getStatusCode() == 404) {
+                        this.negativeLookupFilter.recordMissing(id);
+                    }
+                });
+    }
+
+    private Mono<MovieInfo> retrieveMovieInfo(String id) {
+        return this.movieInfoRSocketClient.isEnabled()
+                ? this.movieInfoRSocketClient.retrieveMovieInfo(id)
+                : this.movieInfoRestClient.retrieveMovieInfo(id);
+    }
+
+    private Flux<Review> retrieveReviews(String movieInfoId) {
+        return this.reviewRSocketClient.isEnabled()
+                ? this.reviewRSocketClient.retrieveReviews(movieInfoId)
+                : this.reviewRestClient.retrieveReviews(movieInfoId);
+    }
+}
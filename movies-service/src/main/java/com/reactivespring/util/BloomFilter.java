@@ -0,0 +1,100 @@
+package com.reactivespring.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Thread-safe Bloom filter of strings sized from the expected insertions and target false-positive rate.
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final LongAdder insertions = new LongAdder();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate within (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount * 64;
+        this.numHashes = (int) Math.max(1, Math.round((double) this.numBits / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long hash = hash64(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= this.numHashes; i++) {
+            setBit(bitIndex(hash1, hash2, i));
+        }
+        this.insertions.increment();
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= this.numHashes; i++) {
+            long index = bitIndex(hash1, hash2, i);
+            if ((this.words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long insertions() {
+        return this.insertions.sum();
+    }
+
+    public long bitSize() {
+        return this.numBits;
+    }
+
+    public int hashFunctions() {
+        return this.numHashes;
+    }
+
+    //Estimated from the insertions so far; it grows past the configured rate once the filter is over capacity.
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-this.numHashes * (double) insertions() / this.numBits), this.numHashes);
+    }
+
+    private long bitIndex(int hash1, int hash2, int i) {
+        int combined = hash1 + i * hash2;
+        if (combined < 0) {
+            combined = ~combined;
+        }
+        return combined % this.numBits;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = this.words.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!this.words.compareAndSet(word, current, current | mask));
+    }
+
+    //FNV-1a followed by the MurmurHash3 finalizer.
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,34 @@
+package com.reactivespring.util;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+//The backends' tags, computed here from this service's copies of their domain objects
+public final class MovieETags {
+
+    private MovieETags() {
+    }
+
+    public static String of(MovieInfo movieInfo) {
+        return ETags.ofMovieInfo(movieInfo.getName(), movieInfo.getYear(), movieInfo.getCast(), movieInfo.getReleaseDate());
+    }
+
+    public static String of(Review review) {
+        return ETags.ofReview(review.getMovieInfoId(), review.getComment(), review.getRating());
+    }
+
+    public static String ofReviews(List<Review> reviews) {
+        return ETags.combine(reviews.stream().map(MovieETags::of).collect(Collectors.toList()));
+    }
+
+    //Composite of the two downstream tags, "<movieInfo>-<reviews>", so a conditional request can be
+    //answered by asking each backend whether its part changed
+    public static String of(Movie movie) {
+        List<Review> reviews = movie.getReviewList() == null ? List.of() : movie.getReviewList();
+        return of(movie.getMovieInfo()) + "-" + ofReviews(reviews);
+    }
+}
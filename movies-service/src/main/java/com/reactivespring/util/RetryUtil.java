@@ -1,6 +1,8 @@
 package com.reactivespring.util;
 
+import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsClientException;
 import com.reactivespring.exception.ReviewsServerException;
 import reactor.core.Exceptions;
 import reactor.util.retry.Retry;
@@ -16,4 +18,12 @@ public class RetryUtil {
                 .onRetryExhaustedThrow(((retryBackoffSpec, retrySignal) ->
                         Exceptions.propagate(retrySignal.failure())));
     }
+
+    public static Retry streamReconnectSpec() {
+        return Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofSeconds(30))
+                .transientErrors(true)
+                .filter(ex -> !(ex instanceof MoviesInfoClientException ||
+                        ex instanceof ReviewsClientException));
+    }
 }
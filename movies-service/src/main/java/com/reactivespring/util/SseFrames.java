@@ -0,0 +1,116 @@
+package com.reactivespring.util;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Splits a raw text/event-stream body into complete frames (each ending with a blank line),
+//so they can be relayed byte for byte without decoding the payload. Lines may end with CRLF, LF or CR.
+public class SseFrames {
+
+    private byte[] pending = new byte[0];
+
+    public List<byte[]> split(DataBuffer dataBuffer) {
+        byte[] bytes;
+        try {
+            bytes = new byte[dataBuffer.readableByteCount()];
+            dataBuffer.read(bytes);
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+
+        byte[] chunk = concat(this.pending, bytes);
+        List<byte[]> frames = new ArrayList<>();
+        int frameStart = 0;
+        int lineStart = 0;
+        int i = 0;
+        while (i < chunk.length) {
+            if (chunk[i] != '\r' && chunk[i] != '\n') {
+                i++;
+                continue;
+            }
+            //a CR at the end of the chunk may be the first half of a CRLF split across reads
+            if (chunk[i] == '\r' && i + 1 == chunk.length) {
+                break;
+            }
+            int lineEnd = chunk[i] == '\r' && chunk[i + 1] == '\n' ? i + 2 : i + 1;
+            if (i == lineStart) {
+                frames.add(Arrays.copyOfRange(chunk, frameStart, lineEnd));
+                frameStart = lineEnd;
+            }
+            lineStart = lineEnd;
+            i = lineEnd;
+        }
+        this.pending = Arrays.copyOfRange(chunk, frameStart, chunk.length);
+        return frames;
+    }
+
+    public static String eventId(byte[] frame) {
+        String id = null;
+        for (String line : lines(frame)) {
+            if (line.startsWith("id:")) {
+                id = fieldValue(line, 3);
+            }
+        }
+        return id;
+    }
+
+    public static String eventType(byte[] frame) {
+        String type = null;
+        for (String line : lines(frame)) {
+            if (line.startsWith("event:")) {
+                type = fieldValue(line, 6);
+            }
+        }
+        return type;
+    }
+
+    public static String data(byte[] frame) {
+        StringBuilder data = null;
+        for (String line : lines(frame)) {
+            if (line.startsWith("data:")) {
+                if (data == null) {
+                    data = new StringBuilder();
+                } else {
+                    data.append('\n');
+                }
+                data.append(fieldValue(line, 5));
+            }
+        }
+        return data == null ? null : data.toString();
+    }
+
+    public static boolean hasData(byte[] frame) {
+        for (String line : lines(frame)) {
+            if (line.startsWith("data:")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] lines(byte[] frame) {
+        return new String(frame, StandardCharsets.UTF_8).split("\r\n|\r|\n");
+    }
+
+    private static String fieldValue(String line, int offset) {
+        return line.length() > offset && line.charAt(offset) == ' '
+                ? line.substring(offset + 1)
+                : line.substring(offset);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        if (first.length == 0) {
+            return second;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(first.length + second.length);
+        out.write(first, 0, first.length);
+        out.write(second, 0, second.length);
+        return out.toByteArray();
+    }
+}
@@ -2,19 +2,27 @@ package com.reactivespring.controller;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieChunk;
+import com.reactivespring.domain.MovieInfo;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import java.util.Objects;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -54,10 +62,40 @@ public class MoviesControllerIntgTest {
                     var movie = movieEntityExchangeResult.getResponseBody();
                     assert Objects.requireNonNull(movie).getReviewList().size() == 2;
                     assertEquals("Batman Begins", movie.getMovieInfo().getName());
-                });
+                })
+                .consumeWith(movieEntityExchangeResult -> assertNotNull(movieEntityExchangeResult.getResponseHeaders().getETag()));
 
     }
 
+    @Test
+    void retrieveMovieById_notModified() {
+        //given
+        var movieId = "ghi";
+        stubFor(get(urlEqualTo("/v1/movie-info" + "/" + movieId))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"info1\""))
+                .willReturn(aResponse()
+                        .withStatus(304)
+                        .withHeader(HttpHeaders.ETAG, "\"info1\"")));
+
+        stubFor(get(urlPathEqualTo("/v1/review"))
+                .withQueryParam("movieInfoId", equalTo(movieId))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"reviews1\""))
+                .willReturn(aResponse()
+                        .withStatus(304)
+                        .withHeader(HttpHeaders.ETAG, "\"reviews1\"")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movie/{id}", movieId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"info1-reviews1\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"info1-reviews1\"");
+
+        forgetReviewRequests(movieId);
+    }
+
     @Test
     void retrieveMovieById_404() {
         //given
@@ -172,4 +210,103 @@ public class MoviesControllerIntgTest {
 
     }
 
+    @Test
+    void retrieveMovieInfoStream() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movie-info/stream"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody("id:0\ndata:{\"movieInfoId\":\"abc\",\"name\":\"Batman Begins\",\"year\":2005," +
+                                "\"cast\":[\"Christian Bale\"],\"releaseDate\":\"2005-06-15\"}\n\n")));
+
+        //when
+        Flux<MovieInfo> responseBody = webTestClient
+                .get()
+                .uri("/v1/movie/stream")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        StepVerifier.create(responseBody)
+                .assertNext(movieInfo -> assertEquals("Batman Begins", movieInfo.getName()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void retrieveMovieInfoStreamSkipsDeletes() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movie-info/stream"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody("id:0\nevent:delete\ndata:{\"movieInfoId\":\"xyz\"}\n\n" +
+                                "id:1\ndata:{\"movieInfoId\":\"abc\",\"name\":\"Batman Begins\",\"year\":2005," +
+                                "\"cast\":[\"Christian Bale\"],\"releaseDate\":\"2005-06-15\"}\n\n")));
+
+        //when
+        Flux<MovieInfo> responseBody = webTestClient
+                .get()
+                .uri("/v1/movie/stream")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        //then
+        StepVerifier.create(responseBody)
+                .assertNext(movieInfo -> assertEquals("abc", movieInfo.getMovieInfoId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void streamMovieById() {
+        //given
+        var movieId = "def";
+        stubFor(get(urlEqualTo("/v1/movie-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"movieInfoId\":\"" + movieId + "\",\"name\":\"Batman Begins\",\"year\":2005," +
+                                "\"cast\":[\"Christian Bale\"],\"releaseDate\":\"2005-06-15\"}")));
+
+        stubFor(get(urlPathEqualTo("/v1/review"))
+                .withQueryParam("movieInfoId", equalTo(movieId))
+                .withQueryParam("limit", equalTo("2"))
+                .withQueryParam("sort", equalTo("rating,desc"))
+                .withHeader(HttpHeaders.ACCEPT, containing(MediaType.APPLICATION_NDJSON_VALUE))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody("{\"reviewId\":\"1\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n" +
+                                "{\"reviewId\":\"2\",\"movieInfoId\":1,\"comment\":\"Excellent Movie\",\"rating\":9.5}\n")));
+
+        //when
+        Flux<MovieChunk> responseBody = webTestClient
+                .get()
+                .uri("/v1/movie/{id}/stream?reviewLimit=2&sort=rating,desc", movieId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieChunk.class)
+                .getResponseBody();
+
+        StepVerifier.create(responseBody)
+                .assertNext(chunk -> {
+                    assertEquals("Batman Begins", chunk.getMovieInfo().getName());
+                    assertNull(chunk.getReview());
+                })
+                .assertNext(chunk -> assertEquals("Awesome Movie", chunk.getReview().getComment()))
+                .assertNext(chunk -> assertEquals("Excellent Movie", chunk.getReview().getComment()))
+                .verifyComplete();
+
+        forgetReviewRequests(movieId);
+    }
+
+    //The other tests verify request counts that add up across the class; requests for the ids
+    //used only here are taken back out of the journal so they do not shift those counts
+    private static void forgetReviewRequests(String movieInfoId) {
+        WireMock.removeServeEvents(getRequestedFor(urlPathEqualTo("/v1/review"))
+                .withQueryParam("movieInfoId", equalTo(movieInfoId)));
+    }
+
 }
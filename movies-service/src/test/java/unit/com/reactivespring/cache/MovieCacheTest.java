@@ -0,0 +1,146 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieCacheTest {
+
+    private final Movie movie = new Movie(
+            new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")),
+            List.of());
+
+    @Test
+    void freshEntryIsServedFromCache() {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(movieCache.get("abc", () -> Mono.fromCallable(() -> {
+                        loads.incrementAndGet();
+                        return movie;
+                    })))
+                    .expectNext(movie)
+                    .verifyComplete();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleEntryIsServedWhileRevalidating() throws InterruptedException {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMillis(10), Duration.ofMinutes(1), Duration.ZERO, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        movieCache.get("abc", () -> Mono.just(movie)).block();
+        Thread.sleep(20);
+
+        StepVerifier.create(movieCache.get("abc", () -> Mono.fromCallable(() -> {
+                    loads.incrementAndGet();
+                    return movie;
+                })))
+                .expectNext(movie)
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleEntryIsServedWhenRefreshFails() throws InterruptedException {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMillis(10), Duration.ZERO, Duration.ofMinutes(1), 10);
+
+        movieCache.get("abc", () -> Mono.just(movie)).block();
+        Thread.sleep(20);
+
+        StepVerifier.create(movieCache.get("abc", () -> Mono.error(new MoviesInfoServerException("down"))))
+                .expectNext(movie)
+                .verifyComplete();
+    }
+
+    @Test
+    void notFoundIsNotMaskedByStaleEntry() throws InterruptedException {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMillis(10), Duration.ZERO, Duration.ofMinutes(1), 10);
+
+        movieCache.get("abc", () -> Mono.just(movie)).block();
+        Thread.sleep(20);
+
+        StepVerifier.create(movieCache.get("abc", () -> Mono.error(new MoviesInfoClientException("There is not MovieInfo for id abc", 404))))
+                .expectError(MoviesInfoClientException.class)
+                .verify();
+        assertEquals(0, movieCache.size());
+    }
+
+    @Test
+    void invalidatedEntryIsLoadedAgain() {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        movieCache.get("abc", () -> Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return movie;
+        })).block();
+        movieCache.invalidate("abc");
+        movieCache.get("abc", () -> Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return movie;
+        })).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotUndone() {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, 10);
+        Sinks.One<Movie> inFlight = Sinks.one();
+        AtomicInteger loads = new AtomicInteger();
+
+        StepVerifier.create(movieCache.get("abc", inFlight::asMono))
+                .then(() -> {
+                    movieCache.invalidate("abc");
+                    inFlight.tryEmitValue(movie);
+                })
+                .expectNext(movie)
+                .verifyComplete();
+
+        assertEquals(0, movieCache.size());
+        movieCache.get("abc", () -> Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return movie;
+        })).block();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        MovieCache movieCache = new MovieCache(true, Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, 2);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Mono<Movie>> loader = () -> Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return movie;
+        });
+
+        movieCache.get("a", loader).block();
+        movieCache.get("b", loader).block();
+        movieCache.get("a", loader).block();
+        movieCache.get("c", loader).block();
+        assertEquals(3, loads.get());
+
+        movieCache.get("a", loader).block();
+        assertEquals(3, loads.get());
+        movieCache.get("b", loader).block();
+        assertEquals(4, loads.get());
+    }
+}
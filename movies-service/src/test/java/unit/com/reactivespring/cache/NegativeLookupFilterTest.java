@@ -0,0 +1,114 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.StreamChange;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeLookupFilterTest {
+
+    private final MovieInfo batmanBegins = new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+
+    @Test
+    void recentlyMissingIdIsRejected() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(true, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+
+        assertTrue(filter.mightExist("unknown"));
+        filter.recordMissing("unknown");
+
+        assertFalse(filter.mightExist("unknown"));
+        assertEquals(1L, filter.stats().get("rejectedByNegativeCache"));
+    }
+
+    @Test
+    void knownIdClearsNegativeEntry() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(true, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+
+        filter.recordMissing("abc");
+        filter.recordKnown("abc");
+
+        assertTrue(filter.mightExist("abc"));
+    }
+
+    @Test
+    void bloomMissIsRejectedWhileKnownIdsAreComplete() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(true, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+
+        filter.start(Flux.just(StreamChange.connected()), Flux.just(batmanBegins));
+
+        assertTrue(filter.mightExist("abc"));
+        assertFalse(filter.mightExist("crawler-id-1"));
+        assertFalse(filter.mightExist("crawler-id-2"));
+        //An ObjectId minted a year ago
+        assertFalse(filter.mightExist(objectId(System.currentTimeMillis() - Duration.ofDays(365).toMillis())));
+        assertEquals(3L, filter.stats().get("rejectedByBloomFilter"));
+        filter.close();
+    }
+
+    @Test
+    void recentlyCreatedIdGoesDownstream() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(true, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+
+        filter.start(Flux.just(StreamChange.connected()), Flux.just(batmanBegins));
+
+        //Could have been created after the last event we saw, so the backend gets asked
+        assertTrue(filter.mightExist(objectId(System.currentTimeMillis())));
+        assertEquals(1L, filter.stats().get("bloomMissesChecked"));
+        filter.close();
+    }
+
+    @Test
+    void bloomMissGoesDownstreamUntilSeeded() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(true, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+
+        filter.start(Flux.never(), Flux.just(batmanBegins));
+
+        assertTrue(filter.mightExist("crawler-id"));
+        filter.close();
+    }
+
+    @Test
+    void droppedStreamClearsCompletenessUntilReseeded() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(true, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+        Sinks.Many<StreamChange<MovieInfo>> changes = Sinks.many().multicast().directBestEffort();
+        AtomicInteger seeds = new AtomicInteger();
+
+        filter.start(changes.asFlux(), Flux.defer(() -> {
+            seeds.incrementAndGet();
+            return Flux.just(batmanBegins);
+        }));
+        assertEquals(0, filter.stats().get("knownIdsComplete"));
+
+        changes.tryEmitNext(StreamChange.connected());
+        assertEquals(1, filter.stats().get("knownIdsComplete"));
+
+        changes.tryEmitNext(StreamChange.disconnected());
+        assertEquals(0, filter.stats().get("knownIdsComplete"));
+
+        changes.tryEmitNext(StreamChange.connected());
+        assertEquals(1, filter.stats().get("knownIdsComplete"));
+        assertEquals(2, seeds.get());
+        filter.close();
+    }
+
+    @Test
+    void disabledFilterLetsEverythingThrough() {
+        NegativeLookupFilter filter = new NegativeLookupFilter(false, Duration.ofMinutes(1), Duration.ofSeconds(10), 100, 1_000, 0.01);
+
+        filter.recordMissing("unknown");
+
+        assertTrue(filter.mightExist("unknown"));
+    }
+
+    private static String objectId(long createdMillis) {
+        return String.format("%08x", Duration.ofMillis(createdMillis).getSeconds()) + "0123456789abcdef";
+    }
+}
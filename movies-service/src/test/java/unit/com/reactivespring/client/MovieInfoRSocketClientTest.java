@@ -0,0 +1,61 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MovieInfoRSocketClientTest {
+
+    private static final MovieInfo BATMAN_BEGINS = new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+
+    private final RSocketTestServer server = new RSocketTestServer(new MovieInfoResponder());
+
+    @AfterEach
+    void stopServer() {
+        this.server.close();
+    }
+
+    @Test
+    void retrievesMovieInfo() {
+        MovieInfoRSocketClient client = new MovieInfoRSocketClient(this.server.requesterBuilder(), true, "localhost", this.server.port());
+
+        StepVerifier.create(client.retrieveMovieInfo("abc"))
+                .expectNext(BATMAN_BEGINS)
+                .verifyComplete();
+    }
+
+    @Test
+    void emptyAnswerIsNotFound() {
+        MovieInfoRSocketClient client = new MovieInfoRSocketClient(this.server.requesterBuilder(), true, "localhost", this.server.port());
+
+        StepVerifier.create(client.retrieveMovieInfo("def"))
+                .expectErrorMatches(ex -> ex instanceof MoviesInfoClientException && ((MoviesInfoClientException) ex).getStatusCode() == 404)
+                .verify();
+    }
+
+    @Test
+    void disabledClientFailsFast() {
+        MovieInfoRSocketClient client = new MovieInfoRSocketClient(RSocketRequester.builder(), false, "localhost", 7000);
+
+        assertThrows(IllegalStateException.class, () -> client.retrieveMovieInfo("abc"));
+    }
+
+    static class MovieInfoResponder {
+
+        @MessageMapping("movie-info.by-id.{id}")
+        Mono<MovieInfo> movieInfoById(@DestinationVariable String id) {
+            return "abc".equals(id) ? Mono.just(BATMAN_BEGINS) : Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.reactivespring.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+//Serves the given @MessageMapping handlers over TCP on a free local port, standing in for a backend
+class RSocketTestServer implements AutoCloseable {
+
+    private final RSocketStrategies strategies;
+    private final CloseableChannel channel;
+
+    RSocketTestServer(Object handler) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.strategies = RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2JsonEncoder(objectMapper)))
+                .decoders(decoders -> decoders.add(new Jackson2JsonDecoder(objectMapper)))
+                .build();
+        RSocketMessageHandler messageHandler = new RSocketMessageHandler();
+        messageHandler.setRSocketStrategies(this.strategies);
+        messageHandler.setHandlers(List.of(handler));
+        messageHandler.afterPropertiesSet();
+
+        this.channel = RSocketServer.create(messageHandler.responder())
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+    }
+
+    RSocketRequester.Builder requesterBuilder() {
+        return RSocketRequester.builder()
+                .rsocketStrategies(this.strategies)
+                .dataMimeType(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    int port() {
+        return this.channel.address().getPort();
+    }
+
+    @Override
+    public void close() {
+        this.channel.dispose();
+    }
+}
@@ -0,0 +1,48 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewRSocketClientTest {
+
+    private final RSocketTestServer server = new RSocketTestServer(new ReviewResponder());
+
+    @AfterEach
+    void stopServer() {
+        this.server.close();
+    }
+
+    @Test
+    void retrievesReviewsOfMovie() {
+        ReviewRSocketClient client = new ReviewRSocketClient(this.server.requesterBuilder(), true, "localhost", this.server.port());
+
+        StepVerifier.create(client.retrieveReviews("1"))
+                .expectNext(new Review("r1", 1L, "Awesome Movie", 9.0))
+                .expectNext(new Review("r2", 1L, "Excellent Movie", 8.0))
+                .verifyComplete();
+    }
+
+    @Test
+    void disabledClientFailsFast() {
+        ReviewRSocketClient client = new ReviewRSocketClient(RSocketRequester.builder(), false, "localhost", 7001);
+
+        assertThrows(IllegalStateException.class, () -> client.retrieveReviews("1"));
+    }
+
+    static class ReviewResponder {
+
+        @MessageMapping("reviews.by-movie-info.{movieInfoId}")
+        Flux<Review> reviewsByMovieInfoId(@DestinationVariable Long movieInfoId) {
+            return Flux.just(new Review("r1", movieInfoId, "Awesome Movie", 9.0),
+                    new Review("r2", movieInfoId, "Excellent Movie", 8.0));
+        }
+    }
+}
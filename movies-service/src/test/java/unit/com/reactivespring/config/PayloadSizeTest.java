@@ -0,0 +1,44 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Compares the encoded size of a Movie with a large review list in each format.
+class PayloadSizeTest {
+
+    private final Movie movie = new Movie(
+            new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")),
+            IntStream.range(0, 1_000)
+                    .mapToObj(i -> new Review(String.valueOf(i), 1L, "Awesome Movie " + i, 9.0))
+                    .collect(Collectors.toList()));
+
+    @Test
+    void binaryFormatsAreSmallerThanJson() throws Exception {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+
+        int jsonSize = json.writeValueAsBytes(movie).length;
+        int smileSize = smile.writeValueAsBytes(movie).length;
+        int cborSize = cbor.writeValueAsBytes(movie).length;
+
+        //Smile back-references the repeated review field names, so it is well under JSON and CBOR
+        assertTrue(smileSize < jsonSize * 0.8, "smile " + smileSize + " bytes, json " + jsonSize);
+        assertTrue(cborSize < jsonSize, "cbor " + cborSize + " bytes, json " + jsonSize);
+        assertTrue(smileSize < cborSize, "smile " + smileSize + " bytes, cbor " + cborSize);
+        assertEquals(movie, smile.readValue(smile.writeValueAsBytes(movie), Movie.class));
+        assertEquals(movie, cbor.readValue(cbor.writeValueAsBytes(movie), Movie.class));
+    }
+}
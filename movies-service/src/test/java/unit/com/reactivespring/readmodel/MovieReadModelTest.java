@@ -0,0 +1,158 @@
+package com.reactivespring.readmodel;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.StreamChange;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieReadModelTest {
+
+    private final MovieInfo batmanBegins = new MovieInfo("1", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+
+    @Test
+    void servesSeededMoviesAndAppliesChanges() {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMinutes(1));
+        Sinks.Many<StreamChange<Review>> reviewChanges = Sinks.many().multicast().directBestEffort();
+
+        readModel.start(Flux.never(), reviewChanges.asFlux(),
+                Flux.just(batmanBegins),
+                Flux.just(new Review("r1", 1L, "Awesome Movie", 9.0)));
+
+        reviewChanges.tryEmitNext(saved(new Review("r2", 1L, "Excellent Movie", 9.5)));
+        reviewChanges.tryEmitNext(saved(new Review("r1", 1L, "Awesome Movie, updated", 8.0)));
+
+        Optional<Movie> movie = readModel.find("1");
+        assertTrue(movie.isPresent());
+        assertEquals("Batman Begins", movie.get().getMovieInfo().getName());
+        assertEquals(2, movie.get().getReviewList().size());
+        assertEquals("Awesome Movie, updated", movie.get().getReviewList().get(1).getComment());
+        readModel.close();
+    }
+
+    @Test
+    void missesUntilSeeded() {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMinutes(1));
+
+        readModel.start(Flux.just(saved(batmanBegins)), Flux.never(), Flux.never(), Flux.empty());
+
+        assertFalse(readModel.isSeeded());
+        assertTrue(readModel.find("1").isEmpty());
+        readModel.close();
+    }
+
+    @Test
+    void missesWhenEntryIsTooOld() throws InterruptedException {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMillis(10));
+
+        readModel.start(Flux.never(), Flux.never(), Flux.just(batmanBegins), Flux.empty());
+        Thread.sleep(20);
+
+        assertTrue(readModel.find("1").isEmpty());
+        readModel.close();
+    }
+
+    @Test
+    void seedDoesNotOverwriteNewerStreamChanges() {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMinutes(1));
+        Sinks.Many<MovieInfo> seed = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.Many<StreamChange<MovieInfo>> movieInfoChanges = Sinks.many().multicast().directBestEffort();
+        MovieInfo renamed = new MovieInfo("1", "Batman Begins, remastered", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+
+        readModel.start(movieInfoChanges.asFlux(), Flux.never(), seed.asFlux(), Flux.empty());
+        movieInfoChanges.tryEmitNext(saved(renamed));
+        movieInfoChanges.tryEmitNext(new StreamChange<>(StreamChange.Type.DELETED, new MovieInfo("2", null, null, null, null)));
+        //The bulk read started before both changes and returns the older copies
+        seed.tryEmitNext(batmanBegins);
+        seed.tryEmitNext(new MovieInfo("2", "The Dark Knight", 2008, List.of("Christian Bale"), LocalDate.parse("2008-07-18")));
+        seed.tryEmitComplete();
+
+        assertEquals("Batman Begins, remastered", readModel.find("1").get().getMovieInfo().getName());
+        assertTrue(readModel.find("2").isEmpty());
+        readModel.close();
+    }
+
+    @Test
+    void appliesDeletes() {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMinutes(1));
+        Sinks.Many<StreamChange<MovieInfo>> movieInfoChanges = Sinks.many().multicast().directBestEffort();
+        Sinks.Many<StreamChange<Review>> reviewChanges = Sinks.many().multicast().directBestEffort();
+        Review review = new Review("r1", 1L, "Awesome Movie", 9.0);
+
+        readModel.start(movieInfoChanges.asFlux(), reviewChanges.asFlux(), Flux.just(batmanBegins), Flux.just(review));
+        reviewChanges.tryEmitNext(new StreamChange<>(StreamChange.Type.DELETED, review));
+
+        assertTrue(readModel.find("1").get().getReviewList().isEmpty());
+
+        movieInfoChanges.tryEmitNext(new StreamChange<>(StreamChange.Type.DELETED, new MovieInfo("1", null, null, null, null)));
+
+        assertTrue(readModel.find("1").isEmpty());
+        readModel.close();
+    }
+
+    @Test
+    void loadDoesNotRestoreMovieDeletedWhileInFlight() {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMinutes(1));
+        Sinks.Many<StreamChange<MovieInfo>> movieInfoChanges = Sinks.many().multicast().directBestEffort();
+
+        readModel.start(movieInfoChanges.asFlux(), Flux.never(), Flux.just(batmanBegins), Flux.empty());
+        long startVersion = readModel.currentVersion();
+        movieInfoChanges.tryEmitNext(new StreamChange<>(StreamChange.Type.DELETED, new MovieInfo("1", null, null, null, null)));
+        //The fan-out load started before the delete and returns the older copy
+        readModel.put(new Movie(batmanBegins, List.of()), startVersion);
+
+        assertTrue(readModel.find("1").isEmpty());
+
+        readModel.put(new Movie(batmanBegins, List.of()), readModel.currentVersion());
+
+        assertTrue(readModel.find("1").isPresent());
+        readModel.close();
+    }
+
+    @Test
+    void loadDoesNotOverwriteNewerSave() {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMinutes(1));
+        Sinks.Many<StreamChange<MovieInfo>> movieInfoChanges = Sinks.many().multicast().directBestEffort();
+        MovieInfo renamed = new MovieInfo("1", "Batman Begins, remastered", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+
+        readModel.start(movieInfoChanges.asFlux(), Flux.never(), Flux.just(batmanBegins), Flux.empty());
+        long startVersion = readModel.currentVersion();
+        movieInfoChanges.tryEmitNext(saved(renamed));
+        readModel.put(new Movie(batmanBegins, List.of()), startVersion);
+
+        assertEquals("Batman Begins, remastered", readModel.find("1").get().getMovieInfo().getName());
+        readModel.close();
+    }
+
+    @Test
+    void keepsEntriesWhileStreamsStayConnected() throws InterruptedException {
+        MovieReadModel readModel = new MovieReadModel(true, Duration.ofMillis(10));
+        Sinks.Many<StreamChange<MovieInfo>> movieInfoChanges = Sinks.many().multicast().directBestEffort();
+
+        readModel.start(movieInfoChanges.asFlux(), Flux.just(StreamChange.connected()), Flux.just(batmanBegins), Flux.empty());
+        movieInfoChanges.tryEmitNext(StreamChange.connected());
+        Thread.sleep(20);
+
+        assertTrue(readModel.find("1").isPresent());
+
+        //Changes may be missed while disconnected, so only maxAge vouches for the entry now, even after reconnecting
+        movieInfoChanges.tryEmitNext(StreamChange.disconnected());
+        movieInfoChanges.tryEmitNext(StreamChange.connected());
+
+        assertTrue(readModel.find("1").isEmpty());
+        readModel.close();
+    }
+
+    private static <T> StreamChange<T> saved(T value) {
+        return new StreamChange<>(StreamChange.Type.SAVED, value);
+    }
+}
@@ -0,0 +1,40 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEveryInsertedValue() {
+        BloomFilter bloomFilter = new BloomFilter(1_000, 0.01);
+
+        for (int i = 0; i < 1_000; i++) {
+            bloomFilter.put("movie-" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(bloomFilter.mightContain("movie-" + i));
+        }
+        assertEquals(1_000, bloomFilter.insertions());
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("movie-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloomFilter.mightContain("unknown-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertTrue(bloomFilter.expectedFalsePositiveRate() < 0.02);
+    }
+}
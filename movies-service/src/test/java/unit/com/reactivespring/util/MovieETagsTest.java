@@ -0,0 +1,37 @@
+package com.reactivespring.util;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieETagsTest {
+
+    private final MovieInfo movieInfo = new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15"));
+    private final Review first = new Review("r1", 1L, "Awesome Movie", 9.0);
+    private final Review second = new Review("r2", 1L, "Excellent Movie", 8.0);
+
+    @Test
+    void matchesTheBackendFieldContract() {
+        assertEquals(ETags.ofMovieInfo("Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"), LocalDate.parse("2005-06-15")), MovieETags.of(movieInfo));
+        assertEquals(ETags.ofReview(1L, "Awesome Movie", 9.0), MovieETags.of(first));
+    }
+
+    @Test
+    void reviewListTagIgnoresOrder() {
+        assertEquals(MovieETags.ofReviews(List.of(first, second)), MovieETags.ofReviews(List.of(second, first)));
+        assertNotEquals(MovieETags.ofReviews(List.of(first)), MovieETags.ofReviews(List.of(first, second)));
+    }
+
+    @Test
+    void movieTagIsComposite() {
+        Movie movie = new Movie(movieInfo, List.of(first, second));
+
+        assertEquals(MovieETags.of(movieInfo) + "-" + MovieETags.ofReviews(List.of(first, second)), MovieETags.of(movie));
+    }
+}
@@ -0,0 +1,52 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseFramesTest {
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    @Test
+    void splitKeepsPartialFramesUntilComplete() {
+        SseFrames sseFrames = new SseFrames();
+
+        List<byte[]> first = sseFrames.split(bufferFactory.wrap("id:0\ndata:{\"name\":\"Batman\"}\n\nid:1\nda".getBytes(StandardCharsets.UTF_8)));
+        List<byte[]> second = sseFrames.split(bufferFactory.wrap("ta:{\"name\":\"Joker\"}\n\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, first.size());
+        assertEquals("id:0\ndata:{\"name\":\"Batman\"}\n\n", new String(first.get(0), StandardCharsets.UTF_8));
+        assertEquals(1, second.size());
+        assertEquals("1", SseFrames.eventId(second.get(0)));
+        assertEquals("{\"name\":\"Joker\"}", SseFrames.data(second.get(0)));
+    }
+
+    @Test
+    void splitHandlesCrlfAndCrLineEndings() {
+        SseFrames sseFrames = new SseFrames();
+
+        List<byte[]> first = sseFrames.split(bufferFactory.wrap("id:0\r\ndata:{\"name\":\"Batman\"}\r\n\r".getBytes(StandardCharsets.UTF_8)));
+        List<byte[]> second = sseFrames.split(bufferFactory.wrap("\nid:1\rdata:{\"name\":\"Joker\"}\r\rid:2".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, first.size());
+        assertEquals(2, second.size());
+        assertEquals("id:0\r\ndata:{\"name\":\"Batman\"}\r\n\r\n", new String(second.get(0), StandardCharsets.UTF_8));
+        assertEquals("0", SseFrames.eventId(second.get(0)));
+        assertEquals("{\"name\":\"Batman\"}", SseFrames.data(second.get(0)));
+        assertEquals("1", SseFrames.eventId(second.get(1)));
+        assertEquals("{\"name\":\"Joker\"}", SseFrames.data(second.get(1)));
+    }
+
+    @Test
+    void commentFrameHasNoData() {
+        byte[] frame = ":heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(SseFrames.eventId(frame));
+        assertNull(SseFrames.data(frame));
+    }
+}